@@ -0,0 +1,48 @@
+package mday.wordbrain.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fixed corpus of puzzles used by the benchmarks, one for each supported grid size. Every puzzle has at least one
+ * solution in the bundled dictionary, and the solve time grows with the grid size, from milliseconds for 3x3 to seconds
+ * for 8x8. The larger puzzles spell common words along a path snaking down from the top row, with word lengths chosen
+ * to leave many candidate words in the grid.
+ */
+public enum BenchmarkPuzzle {
+    SIZE_3(Arrays.asList(3, 3, 3), "CAT", "DOG", "EAR"),
+    SIZE_4(Arrays.asList(4, 4, 4, 4), "TREE", "LAMP", "BIRD", "FISH"),
+    SIZE_5(Arrays.asList(8, 3, 5, 4, 5), "ALABH", "LFLLO", "ERMSU", "BNLAS", "UMAEE"),
+    SIZE_6(Arrays.asList(7, 7, 7, 7, 8), "KITCHE", "ACNAPN", "KEBLAN", "BACTEK", "INETUM", "ALLERB"),
+    SIZE_7(Arrays.asList(7, 8, 8, 8, 9, 9), "KITCHEN", "IATNUOM", "NELEPHA", "WDNASTN", "ICHCHOC", "ALETALO",
+            "NDSCAPE"),
+    SIZE_8(Arrays.asList(8, 8, 9, 9, 10, 10, 10), "MOUNTAIN", "TNAHPELE", "CHOCOLAT", "ACSDNALE", "PEBASKET",
+            "HGILLLAB", "THOUSEST", "YRREBWAR");
+
+    private final List<Integer> wordLengths;
+    private final String[] rows;
+
+    /**
+     * @param wordLengths the lengths of the words in the solutions
+     * @param rows the rows of letters in the grid
+     */
+    BenchmarkPuzzle(final List<Integer> wordLengths, final String... rows) {
+        this.wordLengths = Collections.unmodifiableList(wordLengths);
+        this.rows = rows;
+    }
+
+    /**
+     * @return the lengths of the words in the solutions
+     */
+    public List<Integer> getWordLengths() {
+        return this.wordLengths;
+    }
+
+    /**
+     * @return a new letter grid containing the letters of the puzzle
+     */
+    public LetterGrid getLetterGrid() {
+        return new LetterGrid.Builder(this.rows.length).set(this.rows).build();
+    }
+}
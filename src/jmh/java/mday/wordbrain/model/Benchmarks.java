@@ -0,0 +1,27 @@
+package mday.wordbrain.model;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks in throughput mode with the GC profiler, so every benchmark also reports its allocation rate.
+ * Any of the standard JMH command line options can be provided, for example a regular expression selecting the
+ * benchmarks to run. The benchmarks load the {@code words} file, so they need to be run from the project directory.
+ */
+public class Benchmarks {
+    /**
+     * @param args the JMH command line options
+     */
+    public static void main(final String... args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .mode(Mode.Throughput)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
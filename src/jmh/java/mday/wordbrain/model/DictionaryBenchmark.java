@@ -0,0 +1,90 @@
+package mday.wordbrain.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks for loading and querying the dictionary.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DictionaryBenchmark {
+    private final static String[] WORDS = {
+        "cat", "dog", "ear", "kitchen", "photographer", "relationship", "uncharacteristic", "alphabet", "qzx", "tra",
+        "zebra", "xylophone", "conversation", "administration", "lamp", "fish"
+    };
+
+    private Dictionary dictionary;
+    private final List<Word> words = new ArrayList<>();
+    private final List<Word> prefixes = new ArrayList<>();
+
+    /**
+     * @param str the string to convert
+     * @return a word spelled along the rows of a grid
+     */
+    private static Word word(final String str) {
+        final int width = Letter.MAX_POSITION + 1;
+        final Word.Builder word = new Word.Builder();
+        for (int i = 0; i < str.length(); i++) {
+            word.add(Letter.valueOf(i / width, i % width, str.charAt(i)));
+        }
+        return word.build();
+    }
+
+    /**
+     * Load the dictionary and the words to look up.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.dictionary = new Dictionary();
+        this.dictionary.load();
+
+        for (final String str : WORDS) {
+            this.words.add(word(str));
+            this.prefixes.add(word(str.substring(0, (str.length() + 1) / 2)));
+        }
+    }
+
+    /**
+     * @return the dictionary loaded from the words file
+     */
+    @Benchmark
+    public Dictionary load() throws IOException {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.load();
+        return dictionary;
+    }
+
+    /**
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void exists(final Blackhole blackhole) {
+        for (final Word word : this.words) {
+            blackhole.consume(this.dictionary.exists(word));
+        }
+    }
+
+    /**
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void isPrefix(final Blackhole blackhole) {
+        for (final Word prefix : this.prefixes) {
+            blackhole.consume(this.dictionary.isPrefix(prefix));
+        }
+    }
+}
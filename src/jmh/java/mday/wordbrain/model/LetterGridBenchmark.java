@@ -0,0 +1,79 @@
+package mday.wordbrain.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks for the letter grid operations used while solving.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class LetterGridBenchmark {
+    @Param
+    private BenchmarkPuzzle puzzle;
+
+    private LetterGrid letterGrid;
+    private GridState gridState;
+    private List<Letter> letters;
+    private Word firstWord;
+
+    /**
+     * Build the grid and the word removed from it, which is made of the first cells in reading order, as many as the
+     * first word of the puzzle has letters.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        this.letterGrid = this.puzzle.getLetterGrid();
+        this.gridState = new GridState(this.letterGrid);
+        this.letters = this.letterGrid.getLetters();
+
+        final int length = this.puzzle.getWordLengths().get(0);
+        this.firstWord = new Word.Builder(new ArrayList<>(this.letters.subList(0, length))).build();
+    }
+
+    /**
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    public void getAdjacent(final Blackhole blackhole) {
+        for (final Letter letter : this.letters) {
+            blackhole.consume(this.letterGrid.getAdjacent(letter));
+        }
+    }
+
+    /**
+     * Includes copying the grid into a builder and clearing the word, since gravity changes the builder.
+     *
+     * @return the builder after the letters have fallen
+     */
+    @Benchmark
+    public LetterGrid.Builder applyGravity() {
+        return new LetterGrid.Builder(this.letterGrid).clear(this.firstWord).applyGravity();
+    }
+
+    /**
+     * Removes the word in place and restores the grid, as the solver does for every branch.
+     *
+     * @return the hash of the grid after the letters have fallen
+     */
+    @Benchmark
+    public long removeWordWithGravity() {
+        this.gridState.removeWordWithGravity(this.firstWord);
+        final long hash = this.gridState.getContentHash();
+        this.gridState.undo();
+        return hash;
+    }
+}
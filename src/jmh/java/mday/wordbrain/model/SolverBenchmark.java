@@ -0,0 +1,60 @@
+package mday.wordbrain.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Benchmarks for finding words and solving the puzzles in the benchmark corpus.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class SolverBenchmark {
+    @Param
+    private BenchmarkPuzzle puzzle;
+
+    private Dictionary dictionary;
+    private LetterGrid letterGrid;
+    private Solver solver;
+
+    /**
+     * Load the dictionary and build the puzzle.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.dictionary = new Dictionary();
+        this.dictionary.load();
+        this.letterGrid = this.puzzle.getLetterGrid();
+        this.solver = new Solver(this.dictionary, this.letterGrid, this.puzzle.getWordLengths());
+    }
+
+    /**
+     * @return all of the words with the length of the first word in the puzzle
+     */
+    @Benchmark
+    public List<Word> findWords() {
+        return this.solver.findWords(this.letterGrid, this.puzzle.getWordLengths().get(0));
+    }
+
+    /**
+     * Each invocation uses a new solver, so no state such as the transposition table carries over between solves.
+     *
+     * @return all of the solutions to the puzzle
+     */
+    @Benchmark
+    public SortedSet<Solution> solve() {
+        return new Solver(this.dictionary, this.letterGrid, this.puzzle.getWordLengths()).solve();
+    }
+}
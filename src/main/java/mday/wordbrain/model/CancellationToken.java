@@ -0,0 +1,23 @@
+package mday.wordbrain.model;
+
+/**
+ * Used to cancel a solve from another thread. The solver checks the token periodically, so a cancelled solve ends
+ * shortly after {@link #cancel()} is called and returns the solutions found until then.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    /**
+     * Request that the solves using this token stop.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * @return whether the token has been cancelled
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+}
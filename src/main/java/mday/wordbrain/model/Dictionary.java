@@ -6,22 +6,46 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.CharBuffer;
+import java.util.Collection;
+import java.util.Objects;
 
 /**
- * Represents the known words available.
+ * Represents the known words available. The words are stored in a compact array-backed {@link Trie}, see that class
+ * for the memory footprint and lookup cost.
  */
 public class Dictionary {
-    private final static String DICTIONARY_FILE = "words";
+    /**
+     * The node handle returned by {@link #getChild(int, char)} when no word continues with the requested letter.
+     */
+    public final static int NONE = Trie.NONE;
+
+    /**
+     * The plain-text word list loaded by default.
+     */
+    final static String DICTIONARY_FILE = "words";
 
-    private final LetterNode root = new LetterNode();
+    private Trie.Builder builder = new Trie.Builder();
+    private volatile Trie trie = null;
+    private LetterStatistics statistics = null;
 
     /**
      * @throws IOException if there is a problem loading all of the words from the file
      */
     public void load() throws IOException {
-        try (final FileReader fileReader = new FileReader(new File(DICTIONARY_FILE));
+        load(new File(DICTIONARY_FILE));
+    }
+
+    /**
+     * Adds the words in the file to this dictionary on the calling thread. The words are added to any words already in
+     * the dictionary, which {@link DictionaryLoader} cannot do since it creates a new dictionary, and no threads are
+     * started. Use {@link DictionaryLoader} to create a dictionary from a large word list quickly.
+     *
+     * @param file the plain-text file containing one word per line
+     * @throws IOException if there is a problem loading all of the words from the file
+     */
+    public void load(final File file) throws IOException {
+        try (final FileReader fileReader = new FileReader(Objects.requireNonNull(file));
              final BufferedReader bufferedReader = new BufferedReader(fileReader)) {
             String line;
             while ((line = bufferedReader.readLine()) != null) {
@@ -31,17 +55,125 @@ public class Dictionary {
                 }
             }
         }
+        getTrie();
+    }
+
+    /**
+     * @param trie the compact trie holding the words
+     * @return a dictionary containing the words in the trie
+     */
+    static Dictionary of(final Trie trie) {
+        final Dictionary dictionary = new Dictionary();
+        synchronized (dictionary) {
+            dictionary.builder = null;
+            dictionary.statistics = LetterStatistics.of(trie);
+            dictionary.trie = trie;
+        }
+        return dictionary;
+    }
+
+    /**
+     * Opens a dictionary from a binary snapshot created with {@link #save(File)}. The snapshot is memory-mapped and
+     * queried in place, so opening it does not depend on the number of words. Words added later are kept on the heap
+     * and do not modify the file.
+     *
+     * @param file the dictionary snapshot file to open
+     * @return the dictionary backed by the snapshot
+     * @throws IOException if there is a problem reading the file, or it is not a supported snapshot
+     */
+    public static Dictionary open(final File file) throws IOException {
+        final DictionarySnapshot snapshot = DictionarySnapshot.open(file);
+        final Dictionary dictionary = new Dictionary();
+        synchronized (dictionary) {
+            dictionary.builder = null;
+            dictionary.statistics = snapshot.getStatistics();
+            dictionary.trie = snapshot.getTrie();
+        }
+        return dictionary;
+    }
+
+    /**
+     * @param file the file to which a binary snapshot of this dictionary should be written, which can later be opened
+     *     with {@link #open(File)}
+     * @throws IOException if there is a problem writing the file
+     */
+    public void save(final File file) throws IOException {
+        final Trie trie = getTrie();
+        DictionarySnapshot.write(file, trie, getLetterStatistics());
+    }
+
+    /**
+     * Derives a much smaller dictionary for a single puzzle, containing only the words with one of the requested
+     * lengths that can be spelled using the provided letters, with each letter used at most as many times as it is
+     * provided. The derived trie is small enough to stay in the processor caches, and a prefix using a letter that is
+     * not available fails at the root.
+     *
+     * @param letters the available letters, repeated as many times as each is available
+     * @param lengths the lengths of the words to keep
+     * @return the restricted dictionary
+     */
+    public Dictionary restrict(final CharSequence letters, final Collection<Integer> lengths) {
+        final int[] counts = new int[Trie.ALPHABET];
+        for (int i = 0; i < Objects.requireNonNull(letters).length(); i++) {
+            final int letter = Trie.indexOf(Character.toLowerCase(letters.charAt(i)));
+            if (letter >= 0) {
+                counts[letter]++;
+            }
+        }
+
+        long lengthMask = 0;
+        int maxLength = 0;
+        for (final int length : Objects.requireNonNull(lengths)) {
+            if (length > 0 && length < Long.SIZE) {
+                lengthMask |= 1L << length;
+                maxLength = Math.max(maxLength, length);
+            }
+        }
+
+        final Trie.Builder restricted = new Trie.Builder();
+        restrict(getTrie(), Trie.ROOT, new char[maxLength], 0, counts, lengthMask, restricted);
+
+        final Dictionary dictionary = new Dictionary();
+        dictionary.builder = restricted;
+        dictionary.getTrie();
+        return dictionary;
     }
 
     /**
-     * @param word the word to add to this dictionary
+     * Walk the trie depth-first, only following letters that are still available.
      */
-    public void add(final String word) {
-        LetterNode node = this.root;
-        for (final char c : word.toCharArray()) {
-            node = node.getChild(c);
+    private static void restrict(
+            final Trie trie, final int node, final char[] path, final int depth, final int[] counts,
+            final long lengthMask, final Trie.Builder restricted) {
+        if (trie.isWord(node) && (lengthMask & (1L << depth)) != 0) {
+            restricted.add(CharBuffer.wrap(path, 0, depth));
+        }
+        if (depth == path.length) {
+            return;
+        }
+
+        int child = trie.getFirstChild(node);
+        for (int mask = trie.getChildMask(node); mask != 0; mask &= mask - 1, child += Trie.STRIDE) {
+            final int letter = Integer.numberOfTrailingZeros(mask);
+            if (counts[letter] > 0) {
+                counts[letter]--;
+                path[depth] = (char) ('a' + letter);
+                restrict(trie, child, path, depth + 1, counts, lengthMask, restricted);
+                counts[letter]++;
+            }
         }
-        node.setWord(true);
+    }
+
+    /**
+     * @param word the word to add to this dictionary, words containing characters other than {@code a} through
+     *     {@code z} are ignored
+     */
+    public synchronized void add(final String word) {
+        if (this.builder == null) {
+            this.builder = new Trie.Builder(this.trie);
+        }
+        this.builder.add(word);
+        this.trie = null;
     }
 
     /**
@@ -49,15 +181,9 @@ public class Dictionary {
      * @return whether the specified word exists in this dictionary
      */
     public boolean exists(final Word word) {
-        LetterNode node = this.root;
-        for (final Letter letter : word.getLetters()) {
-            if (node.hasChild(letter.getChar())) {
-                node = node.getChild(letter.getChar());
-            } else {
-                return false;
-            }
-        }
-        return node.isWord();
+        final Trie trie = getTrie();
+        final int node = find(trie, word);
+        return node != Trie.NONE && trie.isWord(node);
     }
 
     /**
@@ -65,73 +191,121 @@ public class Dictionary {
      * @return whether the specified prefix exists in this dictionary
      */
     public boolean isPrefix(final Word word) {
-        LetterNode node = this.root;
-        for (final Letter letter : word.getLetters()) {
-            if (node.hasChild(letter.getChar())) {
-                node = node.getChild(letter.getChar());
-            } else {
-                return false;
-            }
-        }
-        return true;
+        return find(getTrie(), word) != Trie.NONE;
     }
 
     /**
-     * Represents a node in the tree of words contained in this dictionary.
+     * Node handles allow a search to walk the dictionary one letter at a time instead of looking up every prefix from
+     * the root. Handles remain valid until another word is added to this dictionary.
+     *
+     * @return the handle of the root node, representing the empty prefix
      */
-    private static class LetterNode {
-        private final char letter;
-        private final Map<Character, LetterNode> children = new HashMap<>();
+    public int getRoot() {
+        return Trie.ROOT;
+    }
 
-        private boolean isWord = false;
+    /**
+     * @param node the handle of the node representing the current prefix
+     * @param c the lowercase letter to append to the prefix
+     * @return the handle of the node representing the extended prefix, or {@link #NONE} if no word has that prefix
+     */
+    public int getChild(final int node, final char c) {
+        return getTrie().getChild(node, c);
+    }
 
-        /**
-         * Creates an empty node, only used for the root node of the tree.
-         */
-        public LetterNode() {
-            this.letter = ' ';
-        }
+    /**
+     * @param node the handle of the node representing the current prefix
+     * @return whether the prefix is a complete word in this dictionary
+     */
+    public boolean isWord(final int node) {
+        return getTrie().isWord(node);
+    }
 
-        /**
-         * @param letter the lowercase letter in this node
-         */
-        public LetterNode(final char letter) {
-            this.letter = Character.toLowerCase(letter);
-        }
+    /**
+     * @param node the handle of the node representing the current prefix
+     * @param length the total length of the word being looked for
+     * @return {@code false} if no word with the specified length starts with the prefix, in which case the search for
+     *     such a word can stop at this prefix
+     */
+    public boolean canReach(final int node, final int length) {
+        return getTrie().canReach(node, length);
+    }
 
-        /**
-         * @param letter the letter to check as a child of this node
-         * @return whether the child node exists at the specified letter
-         */
-        public boolean hasChild(final char letter) {
-            return this.children.containsKey(letter);
-        }
+    /**
+     * @param node the handle of the node representing the current prefix
+     * @return whether any longer word starts with the prefix
+     */
+    public boolean hasChildren(final int node) {
+        return getTrie().hasChildren(node);
+    }
+
+    /**
+     * @param length the word length
+     * @param c the lowercase letter
+     * @return the most times the letter occurs in any single word of the specified length
+     */
+    public int getMaxLetterCount(final int length, final char c) {
+        final int index = Trie.indexOf(c);
+        return (index < 0) ? 0 : getLetterStatistics().getMaxCount(length, index);
+    }
+
+    /**
+     * @return the per-length letter statistics for the words in this dictionary
+     */
+    LetterStatistics getLetterStatistics() {
+        getTrie();
+        return this.statistics;
+    }
+
+    /**
+     * @return the number of nodes used to store the words in this dictionary
+     */
+    public int getNodeCount() {
+        return getTrie().getNodeCount();
+    }
 
-        /**
-         * @param letter the letter for which a child will be returned
-         * @return returns the child with the specified letter, creating it if necessary
-         */
-        public LetterNode getChild(final char letter) {
-            LetterNode node = children.get(letter);
-            if (node == null) {
-                node = new LetterNode(letter);
-                this.children.put(letter, node);
+    /**
+     * @return the approximate number of bytes used to store the words in this dictionary
+     */
+    public long getSizeInBytes() {
+        return getTrie().getSizeInBytes();
+    }
+
+    /**
+     * @param trie the trie to search
+     * @param word the word to find in the trie
+     * @return the handle of the node for the last letter of the word, or {@link Trie#NONE} if not found
+     */
+    private static int find(final Trie trie, final Word word) {
+        int node = Trie.ROOT;
+        for (final Letter letter : word.getLetters()) {
+            node = trie.getChild(node, letter.getChar());
+            if (node == Trie.NONE) {
+                return Trie.NONE;
             }
-            return node;
         }
+        return node;
+    }
 
-        /**
-         * @return whether this node represents the last character of a word
-         */
-        public boolean isWord() {
-            return this.isWord;
-        }
+    /**
+     * @return the compact trie containing all of the added words, building it if words have been added since the
+     *     last time it was built
+     */
+    private Trie getTrie() {
+        final Trie current = this.trie;
+        return (current != null) ? current : compact();
+    }
 
-        /**
-         * @param isWord the new value specifying whether this node is the last character of a word
-         */
-        public void setWord(final boolean isWord) {
-            this.isWord = isWord;
+    /**
+     * @return the compact trie built from the pending words
+     */
+    private synchronized Trie compact() {
+        if (this.trie == null) {
+            final Trie trie = this.builder.build();
+            this.statistics = LetterStatistics.of(trie);
+            this.trie = trie;
+            this.builder = null;
         }
+        return this.trie;
     }
 }
@@ -0,0 +1,348 @@
+package mday.wordbrain.model;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads large plain-text word lists, one word per line, using several threads.
+ * <p>
+ * The file is split into fixed-size chunks that are read with positional {@link FileChannel} reads and parsed in
+ * parallel, straight from the bytes without creating a string per line. A line belongs to the chunk in which it
+ * starts. Lines are trimmed and converted to lowercase like {@link Dictionary#load(File)} does, and lines with bytes
+ * other than the letters {@code a} through {@code z} are ignored. Each chunk sorts its words into one buffer per first
+ * letter, the words of each first letter are then inserted into their own trie and compacted in parallel, and the
+ * compact tries are merged level by level beneath a common root, see {@link Trie#merge(Trie[])}. The result has the
+ * same node layout as loading the file with {@link Dictionary#load(File)}, so both save identical snapshots.
+ * <p>
+ * The loader describes its most recent load, see {@link #getWordsPerSecond()}.
+ */
+public class DictionaryLoader {
+    /**
+     * The default number of bytes in each chunk of the file.
+     */
+    public final static int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The number of bytes read at a time past the end of a chunk to finish its last line.
+     */
+    private final static int READ_AHEAD = 256;
+
+    /**
+     * Separates the words in a shard buffer, which only holds the bytes {@code a} through {@code z}.
+     */
+    private final static byte SEPARATOR = 0;
+
+    private final int threads;
+    private final int chunkSize;
+
+    private long wordCount = 0;
+    private long byteCount = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * @param threads the number of threads used to load the words
+     */
+    public DictionaryLoader(final int threads) {
+        this(threads, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param threads the number of threads used to load the words
+     * @param chunkSize the number of bytes of the file parsed by each task
+     */
+    public DictionaryLoader(final int threads, final int chunkSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid threads: " + threads);
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the dictionary containing the words in the default word list
+     * @throws IOException if there is a problem loading all of the words from the file
+     */
+    public Dictionary load() throws IOException {
+        return load(new File(Dictionary.DICTIONARY_FILE));
+    }
+
+    /**
+     * @param file the plain-text file containing one word per line
+     * @return the dictionary containing the words in the file
+     * @throws IOException if there is a problem loading all of the words from the file
+     */
+    public Dictionary load(final File file) throws IOException {
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try (final FileChannel channel = FileChannel.open(Objects.requireNonNull(file).toPath(),
+                StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final List<Callable<Shards>> parsers = new ArrayList<>();
+            for (long begin = 0; begin < size; begin += this.chunkSize) {
+                final long from = begin;
+                final long to = Math.min(size, begin + this.chunkSize);
+                parsers.add(() -> parse(channel, from, to, size));
+            }
+            final List<Shards> chunks = getAll(executor.invokeAll(parsers));
+
+            final List<Callable<Trie>> builders = new ArrayList<>();
+            for (int l = 0; l < Trie.ALPHABET; l++) {
+                final int letter = l;
+                builders.add(() -> build(chunks, letter));
+            }
+            final List<Trie> shards = getAll(executor.invokeAll(builders));
+            final Dictionary dictionary = Dictionary.of(Trie.merge(shards.toArray(new Trie[0])));
+
+            long words = 0;
+            for (final Shards chunk : chunks) {
+                words += chunk.words;
+            }
+            this.wordCount = words;
+            this.byteCount = size;
+            return dictionary;
+        } catch (final InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + file);
+        } finally {
+            executor.shutdownNow();
+            this.elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * @param futures the futures of the completed tasks
+     * @param <T> the type of result of the tasks
+     * @return the results of the tasks, in order
+     * @throws IOException if a task failed to read the file
+     * @throws InterruptedException if interrupted while waiting for a result
+     */
+    private static <T> List<T> getAll(final List<Future<T>> futures) throws IOException, InterruptedException {
+        final List<T> results = new ArrayList<>(futures.size());
+        for (final Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (final ExecutionException failed) {
+                if (failed.getCause() instanceof IOException) {
+                    throw (IOException) failed.getCause();
+                }
+                throw new IllegalStateException("Failed to load words", failed.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param channel the channel of the file being loaded
+     * @param begin the position of the first byte of the chunk
+     * @param end the position after the last byte of the chunk
+     * @param size the size of the file
+     * @return the words of the lines starting in the chunk, sorted by first letter
+     * @throws IOException if there is a problem reading the file
+     */
+    private static Shards parse(final FileChannel channel, final long begin, final long end, final long size)
+            throws IOException {
+        // Read the byte before the chunk too, to tell whether the chunk starts at the beginning of a line.
+        final long from = Math.max(0, begin - 1);
+        final int limit = (int) (end - from);
+        byte[] bytes = read(channel, from, new byte[limit], 0, limit);
+        int length = limit;
+
+        int pos = 0;
+        if (begin > 0) {
+            while (pos < limit && bytes[pos] != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        final Shards shards = new Shards();
+        while (pos < limit) {
+            int newline = indexOfNewline(bytes, pos, length);
+            while (newline < 0 && from + length < size) {
+                // The last line continues past the end of the chunk.
+                final int more = (int) Math.min(READ_AHEAD, size - from - length);
+                bytes = read(channel, from + length, Arrays.copyOf(bytes, length + more), length, more);
+                newline = indexOfNewline(bytes, length, length + more);
+                length += more;
+            }
+            final int lineEnd = (newline < 0) ? length : newline;
+            shards.add(bytes, pos, lineEnd);
+            pos = lineEnd + 1;
+        }
+        return shards;
+    }
+
+    /**
+     * @param channel the channel to read from
+     * @param position the position in the file of the first byte to read
+     * @param bytes the array into which the bytes are read
+     * @param offset the index in the array of the first byte to read
+     * @param length the number of bytes to read
+     * @return the array of bytes
+     * @throws IOException if there is a problem reading the file, or it ends early
+     */
+    private static byte[] read(final FileChannel channel, final long position, final byte[] bytes, final int offset,
+            final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - offset) < 0) {
+                throw new EOFException("Unexpected end of file at " + (position + buffer.position() - offset));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param bytes the bytes to search
+     * @param from the index of the first byte to check
+     * @param to the index after the last byte to check
+     * @return the index of the first newline, or -1 if there is none
+     */
+    private static int indexOfNewline(final byte[] bytes, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param chunks the words parsed from every chunk of the file
+     * @param letter the index of the first letter of the words to insert
+     * @return the compact trie holding the words with the first letter, or {@code null} if there are none
+     */
+    private static Trie build(final List<Shards> chunks, final int letter) {
+        Trie.Builder builder = null;
+        for (final Shards chunk : chunks) {
+            final byte[] bytes = chunk.buffers[letter];
+            final int size = chunk.sizes[letter];
+            if (size > 0 && builder == null) {
+                builder = new Trie.Builder();
+            }
+            for (int start = 0, end = 0; end < size; end++) {
+                if (bytes[end] == SEPARATOR) {
+                    builder.add(bytes, start, end - start);
+                    start = end + 1;
+                }
+            }
+        }
+        return (builder != null) ? builder.build() : null;
+    }
+
+    /**
+     * @return the number of words read by the most recent load, including any duplicates
+     */
+    public long getWordCount() {
+        return this.wordCount;
+    }
+
+    /**
+     * @return the number of bytes read by the most recent load
+     */
+    public long getByteCount() {
+        return this.byteCount;
+    }
+
+    /**
+     * @return the time taken by the most recent load in nanoseconds, including building the compact trie
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * @return the number of words loaded per second by the most recent load
+     */
+    public double getWordsPerSecond() {
+        return this.wordCount * 1e9 / Math.max(1, this.elapsedNanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("Loaded %d words (%d bytes) in %d ms on %d threads (%.0f words/s)", getWordCount(),
+                getByteCount(), getElapsedNanos() / 1000000, this.threads, getWordsPerSecond());
+    }
+
+    /**
+     * The words parsed from one chunk of the file, in one buffer per first letter. Each word is followed by a
+     * {@link #SEPARATOR}.
+     */
+    private static class Shards {
+        private final byte[][] buffers = new byte[Trie.ALPHABET][];
+        private final int[] sizes = new int[Trie.ALPHABET];
+        private long words = 0;
+
+        /**
+         * @param bytes the bytes of the chunk
+         * @param start the index of the first byte of the line
+         * @param end the index after the last byte of the line
+         */
+        void add(final byte[] bytes, final int start, final int end) {
+            int first = start;
+            int last = end;
+            while (first < last && (bytes[first] & 0xff) <= ' ') {
+                first++;
+            }
+            while (last > first && (bytes[last - 1] & 0xff) <= ' ') {
+                last--;
+            }
+            if (first == last) {
+                return;
+            }
+            for (int i = first; i < last; i++) {
+                final int b = lower(bytes[i]);
+                if (b < 'a' || b > 'z') {
+                    return;
+                }
+            }
+
+            final int letter = lower(bytes[first]) - 'a';
+            final int space = last - first + 1;
+            byte[] buffer = this.buffers[letter];
+            if (buffer == null) {
+                buffer = new byte[Math.max(64, space * 2)];
+            } else if (this.sizes[letter] + space > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, this.sizes[letter] + space));
+            }
+            this.buffers[letter] = buffer;
+
+            int size = this.sizes[letter];
+            for (int i = first; i < last; i++) {
+                buffer[size++] = (byte) lower(bytes[i]);
+            }
+            buffer[size++] = SEPARATOR;
+            this.sizes[letter] = size;
+            this.words++;
+        }
+
+        /**
+         * @param b a byte of a line
+         * @return the byte as an unsigned value, converted to lowercase if it is an uppercase ASCII letter
+         */
+        private static int lower(final byte b) {
+            return (b >= 'A' && b <= 'Z') ? b + ('a' - 'A') : (b & 0xff);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package mday.wordbrain.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Reads and writes the versioned binary snapshot of a compiled dictionary. The trie nodes are stored exactly as they
+ * are laid out in memory, so a snapshot is opened by memory-mapping the file and querying the nodes in place, without
+ * parsing words or building any objects per node.
+ * <p>
+ * File layout, all values little-endian:
+ * <pre>
+ *   int    magic           0x57425452 ("WBTR")
+ *   int    version         2 (version 1 had no length masks in the trie nodes)
+ *   int    maxLength       the length of the longest word
+ *   int    nodeValues      the number of trie node ints
+ *   int[]  letterMasks     maxLength + 1 values
+ *   byte[] maxCounts       (maxLength + 1) * 26 values, padded to a multiple of 4 bytes
+ *   int[]  nodes           nodeValues values
+ * </pre>
+ */
+final class DictionarySnapshot {
+    /**
+     * The value identifying a dictionary snapshot file.
+     */
+    final static int MAGIC = 0x57425452;
+
+    /**
+     * The current version of the snapshot format.
+     */
+    final static int VERSION = 2;
+
+    private final static int HEADER_BYTES = 16;
+
+    private final Trie trie;
+    private final LetterStatistics statistics;
+
+    /**
+     * @param trie the trie of words in the snapshot
+     * @param statistics the letter statistics for the words in the snapshot
+     */
+    private DictionarySnapshot(final Trie trie, final LetterStatistics statistics) {
+        this.trie = trie;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the trie of words in the snapshot
+     */
+    public Trie getTrie() {
+        return this.trie;
+    }
+
+    /**
+     * @return the letter statistics for the words in the snapshot
+     */
+    public LetterStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * @param maxLength the length of the longest word
+     * @return the number of bytes used to store the max counts, including padding
+     */
+    private static int getMaxCountBytes(final int maxLength) {
+        return ((maxLength + 1) * Trie.ALPHABET + 3) & ~3;
+    }
+
+    /**
+     * @param file the file to which the snapshot should be written
+     * @param trie the trie of words to write
+     * @param statistics the letter statistics for the words
+     * @throws IOException if there is a problem writing the file
+     */
+    static void write(final File file, final Trie trie, final LetterStatistics statistics) throws IOException {
+        Objects.requireNonNull(file);
+        final int maxLength = Objects.requireNonNull(statistics).getMaxLength();
+        final int nodeValues = Objects.requireNonNull(trie).length();
+        final int size = HEADER_BYTES + 4 * (maxLength + 1) + getMaxCountBytes(maxLength) + 4 * nodeValues;
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(maxLength);
+        buffer.putInt(nodeValues);
+        for (int length = 0; length <= maxLength; length++) {
+            buffer.putInt(statistics.getLetterMask(length));
+        }
+        for (int length = 0; length <= maxLength; length++) {
+            for (int letter = 0; letter < Trie.ALPHABET; letter++) {
+                buffer.put((byte) statistics.getMaxCount(length, letter));
+            }
+        }
+        buffer.position(size - 4 * nodeValues);
+        trie.writeTo(buffer.asIntBuffer());
+        buffer.rewind();
+
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * @param file the snapshot file to open
+     * @return the snapshot, with the trie nodes mapped directly from the file
+     * @throws IOException if there is a problem reading the file, or the file is not a supported snapshot
+     */
+    static DictionarySnapshot open(final File file) throws IOException {
+        final MappedByteBuffer mapped;
+        try (final FileChannel channel = FileChannel.open(Objects.requireNonNull(file).toPath(),
+                StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a dictionary snapshot: " + file);
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported dictionary snapshot version %d (expected %d): %s",
+                    version, VERSION, file));
+        }
+        final int maxLength = buffer.getInt();
+        final int nodeValues = buffer.getInt();
+        final int nodeOffset = HEADER_BYTES + 4 * (maxLength + 1) + getMaxCountBytes(maxLength);
+        if (maxLength < 0 || nodeValues < Trie.STRIDE || nodeValues % Trie.STRIDE != 0
+                || buffer.capacity() != nodeOffset + 4L * nodeValues) {
+            throw new IOException("Corrupt dictionary snapshot: " + file);
+        }
+
+        final int[] letterMasks = new int[maxLength + 1];
+        for (int length = 0; length <= maxLength; length++) {
+            letterMasks[length] = buffer.getInt();
+        }
+        final byte[] maxCounts = new byte[(maxLength + 1) * Trie.ALPHABET];
+        buffer.get(maxCounts);
+
+        buffer.position(nodeOffset);
+        final Trie trie = Trie.of(buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+        return new DictionarySnapshot(trie, new LetterStatistics(letterMasks, maxCounts));
+    }
+}
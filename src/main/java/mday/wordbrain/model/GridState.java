@@ -0,0 +1,398 @@
+package mday.wordbrain.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A mutable letter grid that the solver backtracks through, removing a word before searching beneath it and undoing the
+ * removal afterwards, instead of building a new {@link LetterGrid} for every word.
+ * <p>
+ * Each column is a stack of letters resting on the bottom row. Removing a word makes the letters above each removed
+ * cell fall within its column, so only the cells of the affected columns from the top of the stack down to the lowest
+ * removed cell change, and the Zobrist hash is updated for just those cells. The changed cells are saved on an undo log
+ * first, which makes {@link #undo()} restore the grid exactly. The log only grows until it fits the deepest search, so
+ * removing and restoring words does not allocate.
+ * <p>
+ * Cells, bitsets and neighbor masks are laid out as in {@link LetterGrid}. A grid state is not thread-safe, parallel
+ * searches work on their own {@link #copy()}.
+ */
+final class GridState {
+    private final int rows;
+    private final int cols;
+    private final long[] neighbors;
+    private final int[] bases;
+    private final char[] chars;
+    private final long[] occupied;
+    private final int[] heights;
+    private final int[] removed;
+    private final int[] otherRemoved;
+    private int letterCount;
+    private long contentHash;
+
+    /**
+     * Column, top row and bottom row of each saved column segment.
+     */
+    private int[] segments = new int[48];
+    private int segmentsSize = 0;
+
+    /**
+     * The characters of the saved column segments, top row first.
+     */
+    private char[] saved = new char[256];
+    private int savedSize = 0;
+
+    /**
+     * Number of segments and letter count before each removal.
+     */
+    private int[] frames = new int[16];
+    private long[] hashes = new long[8];
+    private int depth = 0;
+
+    /**
+     * @param grid the letter grid to copy
+     */
+    GridState(final LetterGrid grid) {
+        final LetterGrid.Layout layout = Objects.requireNonNull(grid).getLayout();
+        this.rows = layout.rows;
+        this.cols = layout.cols;
+        this.neighbors = layout.neighbors;
+        this.bases = layout.bases;
+        this.chars = new char[grid.getCellCount()];
+        this.occupied = grid.getOccupied();
+        this.heights = new int[this.cols];
+        this.removed = new int[this.cols];
+        this.otherRemoved = new int[this.cols];
+        for (int cell = 0; cell < this.chars.length; cell++) {
+            this.chars[cell] = grid.getChar(cell);
+            if (grid.isOccupied(cell)) {
+                this.heights[cell % this.cols]++;
+            }
+        }
+        this.letterCount = grid.getLetterCount();
+        this.contentHash = grid.getContentHash();
+    }
+
+    /**
+     * @param other the grid state to copy, without its undo log
+     */
+    private GridState(final GridState other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.neighbors = other.neighbors;
+        this.bases = other.bases;
+        this.chars = other.chars.clone();
+        this.occupied = other.occupied.clone();
+        this.heights = other.heights.clone();
+        this.removed = new int[this.cols];
+        this.otherRemoved = new int[this.cols];
+        this.letterCount = other.letterCount;
+        this.contentHash = other.contentHash;
+    }
+
+    /**
+     * @return an independent copy of the current contents, which cannot undo the removals made before the copy
+     */
+    GridState copy() {
+        return new GridState(this);
+    }
+
+    /**
+     * @return the number of rows in the grid
+     */
+    int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * @return the number of columns in the grid
+     */
+    int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * @return the number of cells in the grid
+     */
+    int getCellCount() {
+        return this.chars.length;
+    }
+
+    /**
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the index of the cell at the specified location
+     */
+    int getCell(final int row, final int col) {
+        return row * this.cols + col;
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the letter currently in the specified cell
+     */
+    Letter get(final int cell) {
+        return Letter.valueOf(cell / this.cols, cell % this.cols, this.chars[cell]);
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the lowercase character in the specified cell, {@link Letter#EMPTY} if the cell is empty
+     */
+    char getChar(final int cell) {
+        return this.chars[cell];
+    }
+
+    /**
+     * @return the characters of the cells, shared with this grid state and changed by later removals
+     */
+    char[] getChars() {
+        return this.chars;
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return whether the cell contains a letter
+     */
+    boolean isOccupied(final int cell) {
+        return (this.occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @param from the index of the first cell to check
+     * @return the index of the first cell at or after the specified cell that contains a letter, or -1 if there is
+     *     none
+     */
+    int nextOccupied(final int from) {
+        return LetterGrid.nextSetBit(this.occupied, from);
+    }
+
+    /**
+     * @return the number of cells that contain a letter
+     */
+    int getLetterCount() {
+        return this.letterCount;
+    }
+
+    /**
+     * @return a Zobrist hash of the characters in the grid, the same as {@link LetterGrid#getContentHash()} for a
+     *     letter grid with the same contents
+     */
+    long getContentHash() {
+        return this.contentHash;
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the cell represented by bit 0 of the neighbor masks of the specified cell
+     */
+    int getNeighborBase(final int cell) {
+        return this.bases[cell];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @param excluded the bitset of cells to leave out, such as the cells already used in a path
+     * @return the mask of the non-empty cells adjacent to the specified cell that are not excluded, where bit
+     *     {@code n} represents cell {@code getNeighborBase(cell) + n}
+     */
+    long getNeighbors(final int cell, final long[] excluded) {
+        final int base = this.bases[cell];
+        return this.neighbors[cell] & LetterGrid.window(this.occupied, base) & ~LetterGrid.window(excluded, base);
+    }
+
+    /**
+     * Remove the letters of a word and let the letters above them fall, saving what changed so that it can be undone.
+     *
+     * @param word the word to remove, whose letters must all be in the grid at their current locations
+     */
+    void removeWordWithGravity(final Word word) {
+        mark(word, this.removed);
+
+        if (this.depth == this.hashes.length) {
+            this.hashes = Arrays.copyOf(this.hashes, this.depth * 2);
+            this.frames = Arrays.copyOf(this.frames, this.depth * 4);
+        }
+        this.hashes[this.depth] = this.contentHash;
+        this.frames[2 * this.depth + 1] = this.letterCount;
+
+        int count = 0;
+        for (int col = 0; col < this.cols; col++) {
+            if (this.removed[col] != 0) {
+                collapse(col, this.removed[col]);
+                this.removed[col] = 0;
+                count++;
+            }
+        }
+        this.frames[2 * this.depth] = count;
+        this.letterCount -= word.getLength();
+        this.depth++;
+    }
+
+    /**
+     * @param col the column from which letters are removed
+     * @param mask the mask of the rows of the letters to remove
+     */
+    private void collapse(final int col, final int mask) {
+        final int top = this.rows - this.heights[col];
+        final int bottom = 31 - Integer.numberOfLeadingZeros(mask);
+        save(col, top, bottom);
+
+        int write = bottom;
+        for (int r = bottom; r >= top; r--) {
+            final int cell = r * this.cols + col;
+            final char c = this.chars[cell];
+            if ((mask & (1 << r)) != 0) {
+                this.contentHash ^= LetterGrid.zobrist(cell, c);
+                continue;
+            }
+            if (write != r) {
+                final int target = write * this.cols + col;
+                this.contentHash ^= LetterGrid.zobrist(cell, c) ^ LetterGrid.zobrist(target, c);
+                this.chars[target] = c;
+            }
+            write--;
+        }
+        for (int r = top; r <= write; r++) {
+            final int cell = r * this.cols + col;
+            this.chars[cell] = Letter.EMPTY;
+            this.occupied[cell >>> 6] &= ~(1L << cell);
+        }
+        this.heights[col] -= Integer.bitCount(mask);
+    }
+
+    /**
+     * @param col the column of the segment
+     * @param top the top row of the segment
+     * @param bottom the bottom row of the segment
+     */
+    private void save(final int col, final int top, final int bottom) {
+        if (this.segmentsSize + 3 > this.segments.length) {
+            this.segments = Arrays.copyOf(this.segments, this.segments.length * 2);
+        }
+        this.segments[this.segmentsSize++] = col;
+        this.segments[this.segmentsSize++] = top;
+        this.segments[this.segmentsSize++] = bottom;
+
+        final int length = bottom - top + 1;
+        if (this.savedSize + length > this.saved.length) {
+            this.saved = Arrays.copyOf(this.saved, Math.max(this.saved.length * 2, this.savedSize + length));
+        }
+        for (int r = top; r <= bottom; r++) {
+            this.saved[this.savedSize++] = this.chars[r * this.cols + col];
+        }
+    }
+
+    /**
+     * Restore the grid to exactly what it was before the most recent removal that has not been undone.
+     *
+     * @throws IllegalStateException if there is no removal to undo
+     */
+    void undo() {
+        if (this.depth == 0) {
+            throw new IllegalStateException("No removal to undo");
+        }
+
+        this.depth--;
+        for (int count = this.frames[2 * this.depth]; count > 0; count--) {
+            final int bottom = this.segments[--this.segmentsSize];
+            final int top = this.segments[--this.segmentsSize];
+            final int col = this.segments[--this.segmentsSize];
+            this.savedSize -= bottom - top + 1;
+            for (int r = top; r <= bottom; r++) {
+                final int cell = r * this.cols + col;
+                this.chars[cell] = this.saved[this.savedSize + r - top];
+                this.occupied[cell >>> 6] |= 1L << cell;
+            }
+            this.heights[col] = this.rows - top;
+        }
+        this.letterCount = this.frames[2 * this.depth + 1];
+        this.contentHash = this.hashes[this.depth];
+    }
+
+    /**
+     * @param a a word in the grid
+     * @param b another word in the grid
+     * @return whether removing either word leaves exactly the same letters behind
+     */
+    boolean leavesSameGrid(final Word a, final Word b) {
+        mark(a, this.removed);
+        try {
+            mark(b, this.otherRemoved);
+        } catch (final IllegalArgumentException invalid) {
+            Arrays.fill(this.removed, 0);
+            throw invalid;
+        }
+
+        boolean same = true;
+        for (int col = 0; col < this.cols; col++) {
+            if (same && this.removed[col] != this.otherRemoved[col]) {
+                same = isSameColumn(col, this.removed[col], this.otherRemoved[col]);
+            }
+            this.removed[col] = 0;
+            this.otherRemoved[col] = 0;
+        }
+        return same;
+    }
+
+    /**
+     * @param col the column to check
+     * @param maskA the mask of the rows removed from the column by one word
+     * @param maskB the mask of the rows removed from the column by another word
+     * @return whether the column holds the same letters after removing either set of rows
+     */
+    private boolean isSameColumn(final int col, final int maskA, final int maskB) {
+        if (Integer.bitCount(maskA) != Integer.bitCount(maskB)) {
+            return false;
+        }
+
+        final int top = this.rows - this.heights[col];
+        int a = this.rows - 1;
+        int b = this.rows - 1;
+        while (true) {
+            while (a >= top && (maskA & (1 << a)) != 0) {
+                a--;
+            }
+            while (b >= top && (maskB & (1 << b)) != 0) {
+                b--;
+            }
+            if (a < top || b < top) {
+                return a < top && b < top;
+            }
+            if (this.chars[a * this.cols + col] != this.chars[b * this.cols + col]) {
+                return false;
+            }
+            a--;
+            b--;
+        }
+    }
+
+    /**
+     * @param word the word whose letters are marked
+     * @param masks the masks of removed rows per column, all zero on entry
+     * @throws IllegalArgumentException if the word does not match the letters currently in the grid
+     */
+    private void mark(final Word word, final int[] masks) {
+        for (int i = 0; i < word.getLength(); i++) {
+            final Letter letter = word.getLetter(i);
+            final int row = letter.getRow();
+            final int col = letter.getCol();
+            if (row >= this.rows || col >= this.cols || !isOccupied(getCell(row, col))
+                    || this.chars[getCell(row, col)] != letter.getChar() || (masks[col] & (1 << row)) != 0) {
+                Arrays.fill(masks, 0);
+                throw new IllegalArgumentException("Invalid word for grid: " + word);
+            }
+            masks[col] |= 1 << row;
+        }
+    }
+
+    /**
+     * @return an immutable letter grid with the current contents
+     */
+    LetterGrid toLetterGrid() {
+        final LetterGrid.Builder builder = new LetterGrid.Builder(this.rows, this.cols);
+        for (int cell = nextOccupied(0); cell >= 0; cell = nextOccupied(cell + 1)) {
+            builder.set(cell / this.cols, cell % this.cols, this.chars[cell]);
+        }
+        return builder.build();
+    }
+}
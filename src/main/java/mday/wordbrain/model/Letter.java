@@ -1,30 +1,42 @@
 package mday.wordbrain.model;
 
-import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
 import java.util.Objects;
 
 /**
  * Represents a single letter within the grid, along with the location where the letter is located.
+ * <p>
+ * Letters are immutable flyweights: every letter with a character from {@code a} to {@code z} or {@link #EMPTY} is
+ * interned in a canonical table, so building one does not allocate. The character, row and column are also packed
+ * into a single int code, which makes comparing and hashing letters a few integer operations.
  */
 public class Letter implements Comparable<Letter> {
     public final static char EMPTY = ' ';
 
-    private final int row;
-    private final int col;
-    private final char c;
-
     /**
-     * Create a new empty letter.
-     *
-     * @param row the row from which this letter came
-     * @param col the column from which this letter came
+     * The maximum row and column value.
      */
-    private Letter(final int row, final int col) {
-        this(row, col, EMPTY);
+    public final static int MAX_POSITION = LetterGrid.MAX_SIZE;
+
+    private final static int POSITIONS = MAX_POSITION + 1;
+    private final static int CHARS = Trie.ALPHABET + 1;
+    private final static Letter[] INTERNED = new Letter[POSITIONS * POSITIONS * CHARS];
+
+    static {
+        for (int row = 0; row < POSITIONS; row++) {
+            for (int col = 0; col < POSITIONS; col++) {
+                INTERNED[index(row, col, EMPTY)] = new Letter(row, col, EMPTY);
+                for (char c = 'a'; c <= 'z'; c++) {
+                    INTERNED[index(row, col, c)] = new Letter(row, col, c);
+                }
+            }
+        }
     }
 
+    private final int row;
+    private final int col;
+    private final char c;
+    private final int code;
+
     /**
      * Create a new letter with a value.
      *
@@ -36,6 +48,42 @@ public class Letter implements Comparable<Letter> {
         this.row = row;
         this.col = col;
         this.c = c;
+        this.code = (c << 16) | (row << 8) | col;
+    }
+
+    /**
+     * @param row the row of the letter
+     * @param col the column of the letter
+     * @param c the lowercase character value, {@link #EMPTY} or {@code a} through {@code z}
+     * @return the index of the letter in the table of interned letters
+     */
+    private static int index(final int row, final int col, final char c) {
+        return (row * POSITIONS + col) * CHARS + ((c == EMPTY) ? 0 : c - 'a' + 1);
+    }
+
+    /**
+     * @param row the row where the letter is located
+     * @param col the column where the letter is located
+     * @param c the character value, which is converted to lowercase
+     * @return the canonical letter instance, only characters other than {@code a} through {@code z} and
+     *     {@link #EMPTY} require a new object
+     */
+    public static Letter valueOf(final int row, final int col, final char c) {
+        if (row < 0 || row > MAX_POSITION) {
+            throw new IllegalArgumentException("Invalid row: " + row);
+        }
+        if (col < 0 || col > MAX_POSITION) {
+            throw new IllegalArgumentException("Invalid column: " + col);
+        }
+        if (!Character.isAlphabetic(c) && c != EMPTY) {
+            throw new IllegalArgumentException("Invalid character: " + c);
+        }
+
+        final char lower = Character.toLowerCase(c);
+        if (lower == EMPTY || (lower >= 'a' && lower <= 'z')) {
+            return INTERNED[index(row, col, lower)];
+        }
+        return new Letter(row, col, lower);
     }
 
     /**
@@ -83,11 +131,8 @@ public class Letter implements Comparable<Letter> {
             return 1;
         }
 
-        final CompareToBuilder cmp = new CompareToBuilder();
-        cmp.append(getChar(), other.getChar());
-        cmp.append(getRow(), other.getRow());
-        cmp.append(getCol(), other.getCol());
-        return cmp.toComparison();
+        // The code orders by character, then row, then column.
+        return Integer.compareUnsigned(this.code, other.code);
     }
 
     /**
@@ -95,7 +140,7 @@ public class Letter implements Comparable<Letter> {
      */
     @Override
     public boolean equals(final Object other) {
-        return other instanceof Letter && compareTo((Letter) other) == 0;
+        return this == other || (other instanceof Letter && this.code == ((Letter) other).code);
     }
 
     /**
@@ -103,11 +148,7 @@ public class Letter implements Comparable<Letter> {
      */
     @Override
     public int hashCode() {
-        final HashCodeBuilder hash = new HashCodeBuilder();
-        hash.append(getChar());
-        hash.append(getRow());
-        hash.append(getCol());
-        return hash.toHashCode();
+        return this.code * 0x9e3779b1;
     }
 
     /**
@@ -166,7 +207,7 @@ public class Letter implements Comparable<Letter> {
          * @return {@code this} for fluent-style usage
          */
         public Builder setRow(final int row) {
-            if (row < 0 || row > 8) {
+            if (row < 0 || row > MAX_POSITION) {
                 throw new IllegalArgumentException("Invalid row: " + row);
             }
 
@@ -179,7 +220,7 @@ public class Letter implements Comparable<Letter> {
          * @return {@code this} for fluent-style usage
          */
         public Builder setCol(final int col) {
-            if (col < 0 || col > 8) {
+            if (col < 0 || col > MAX_POSITION) {
                 throw new IllegalArgumentException("Invalid column: " + col);
             }
 
@@ -210,10 +251,10 @@ public class Letter implements Comparable<Letter> {
         }
 
         /**
-         * @return the created letter
+         * @return the created letter, the canonical instance when one exists
          */
         public Letter build() {
-            return new Letter(this.row, this.col, this.c);
+            return valueOf(this.row, this.col, this.c);
         }
     }
 }
@@ -1,31 +1,176 @@
 package mday.wordbrain.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Random;
 
 /**
- *
+ * Represents the rectangular grid of letters in a puzzle.
+ * <p>
+ * Cells are numbered in row-major order ({@code row * cols + col}), and a set of cells is a multi-word bitset: an
+ * array of {@code long} words with bit {@code n % 64} of word {@code n / 64} representing cell {@code n}. The grid
+ * keeps the bitset of occupied cells along with a cell to character array.
+ * <p>
+ * The neighbors of a cell all lie within a window of {@code 2 * cols + 3} consecutive cells, which fits in a single
+ * {@code long} as long as a row has at most 30 columns. The neighbors of every cell are therefore precomputed as a
+ * one-word mask relative to a base cell (see {@link #getNeighborBase(int)}), and iterating over adjacent letters is a
+ * shift of at most two bitset words followed by a bit-scan that does not allocate, whatever the size of the grid. For
+ * grids of up to 64 cells the base is always 0, so the masks are plain bitboards of the grid.
  */
 public class LetterGrid {
-    private final int size;
-    private final Letter[][] letters;
+    /**
+     * The maximum number of rows and columns in a grid.
+     */
+    public final static int MAX_SIZE = 16;
+
+    /**
+     * The neighbor masks and bases of every cell, indexed by number of rows and then by number of columns.
+     */
+    private final static Layout[][] LAYOUTS = new Layout[MAX_SIZE + 1][MAX_SIZE + 1];
+
+    static {
+        for (int rows = 0; rows <= MAX_SIZE; rows++) {
+            for (int cols = 0; cols <= MAX_SIZE; cols++) {
+                LAYOUTS[rows][cols] = new Layout(rows, cols);
+            }
+        }
+    }
+
+    /**
+     * Random values for Zobrist hashing of the grid contents, indexed by cell and then by letter, where the last slot
+     * is shared by any character outside {@code a} through {@code z}.
+     */
+    private final static long[][] ZOBRIST = new long[MAX_SIZE * MAX_SIZE][Trie.ALPHABET + 1];
+
+    static {
+        final Random random = new Random(0x5eed5eedL);
+        for (final long[] values : ZOBRIST) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextLong();
+            }
+        }
+    }
+
+    /**
+     * The row and column offsets of the adjacent letters, in the order returned by {@link #getAdjacent(Letter)}.
+     */
+    private final static int[][] DIRECTIONS = {{0, -1}, {-1, -1}, {-1, 0}, {-1, 1}, {0, 1}, {1, 1}, {1, 0}, {1, -1}};
+
+    private final Layout layout;
+    private final Letter[] letters;
+    private final char[] chars;
+    private final long[] occupied;
+    private final int letterCount;
+    private final long contentHash;
 
     /**
-     * @param size the size of the grid
+     * @param rows the number of rows in the grid
+     * @param cols the number of columns in the grid
+     * @param letters the letters in the grid, indexed by cell
      */
-    private LetterGrid(final int size, final Letter[][] letters) {
-        this.size = size;
+    private LetterGrid(final int rows, final int cols, final Letter[] letters) {
+        this.layout = LAYOUTS[rows][cols];
         this.letters = letters;
+        this.chars = new char[letters.length];
+        this.occupied = new long[wordCount(letters.length)];
+
+        int letterCount = 0;
+        long contentHash = 0;
+        for (int cell = 0; cell < letters.length; cell++) {
+            this.chars[cell] = letters[cell].getChar();
+            if (!letters[cell].isEmpty()) {
+                this.occupied[cell >>> 6] |= 1L << cell;
+                letterCount++;
+                contentHash ^= zobrist(cell, this.chars[cell]);
+            }
+        }
+        this.letterCount = letterCount;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @param cellCount the number of cells in a grid
+     * @return the number of {@code long} words in a bitset of the cells
+     */
+    static int wordCount(final int cellCount) {
+        return (cellCount + 63) >>> 6;
+    }
+
+    /**
+     * @param bits the bitset of cells
+     * @param from the first cell of the window
+     * @return the bits of the 64 cells starting at the specified cell, where cells past the end of the bitset are
+     *     not set
+     */
+    static long window(final long[] bits, final int from) {
+        final int index = from >>> 6;
+        final int shift = from & 63;
+        long window = bits[index] >>> shift;
+        if (shift != 0 && index + 1 < bits.length) {
+            window |= bits[index + 1] << (64 - shift);
+        }
+        return window;
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @param c the non-empty character in the cell
+     * @return the Zobrist hash value for the character in the cell
+     */
+    static long zobrist(final int cell, final char c) {
+        final int index = Trie.indexOf(c);
+        return ZOBRIST[cell][(index < 0) ? Trie.ALPHABET : index];
+    }
+
+    /**
+     * @return the neighbor masks of the cells in this grid
+     */
+    Layout getLayout() {
+        return this.layout;
     }
 
     /**
      * @return the size of the letter grid
+     * @throws IllegalStateException if the grid is not square, use {@link #getRows()} and {@link #getCols()}
      */
     public int getSize() {
-        return this.size;
+        if (getRows() != getCols()) {
+            throw new IllegalStateException("Not a square grid: " + getRows() + "x" + getCols());
+        }
+        return getRows();
+    }
+
+    /**
+     * @return the number of rows in the letter grid
+     */
+    public int getRows() {
+        return this.layout.rows;
+    }
+
+    /**
+     * @return the number of columns in the letter grid
+     */
+    public int getCols() {
+        return this.layout.cols;
+    }
+
+    /**
+     * @return the number of cells in the letter grid
+     */
+    public int getCellCount() {
+        return this.letters.length;
+    }
+
+    /**
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the index of the cell at the specified location
+     */
+    public int getCell(final int row, final int col) {
+        return row * this.layout.cols + col;
     }
 
     /**
@@ -35,12 +180,115 @@ public class LetterGrid {
      * @return the requested character
      */
     public Letter get(final int row, final int col) {
-        if (row >= getSize() || col >= getSize()) {
+        if (row >= getRows() || col >= getCols()) {
             throw new IllegalArgumentException(
-                    String.format("Out of grid bounds: %d, %d (max: %d)", row, col, getSize() - 1));
+                    String.format("Out of grid bounds: %d, %d (max: %d, %d)", row, col, getRows() - 1, getCols() - 1));
+        }
+
+        return this.letters[getCell(row, col)];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the letter in the specified cell
+     */
+    public Letter get(final int cell) {
+        return this.letters[cell];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the lowercase character in the specified cell, {@link Letter#EMPTY} if the cell is empty
+     */
+    public char getChar(final int cell) {
+        return this.chars[cell];
+    }
+
+    /**
+     * @return the bitset of cells that contain a letter
+     */
+    public long[] getOccupied() {
+        return this.occupied.clone();
+    }
+
+    /**
+     * @return the number of cells that contain a letter
+     */
+    public int getLetterCount() {
+        return this.letterCount;
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return whether the cell contains a letter
+     */
+    public boolean isOccupied(final int cell) {
+        return (this.occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @param from the index of the first cell to check
+     * @return the index of the first cell at or after the specified cell that contains a letter, or -1 if there is
+     *     none
+     */
+    public int nextOccupied(final int from) {
+        return nextSetBit(this.occupied, from);
+    }
+
+    /**
+     * @param bits the bitset of cells
+     * @param from the index of the first cell to check
+     * @return the index of the first cell at or after the specified cell that is set, or -1 if there is none
+     */
+    static int nextSetBit(final long[] bits, final int from) {
+        int index = from >>> 6;
+        if (index >= bits.length) {
+            return -1;
+        }
+
+        long word = bits[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == bits.length) {
+                return -1;
+            }
+            word = bits[index];
         }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return a Zobrist hash of the characters in the grid, equal for grids with equal contents
+     */
+    public long getContentHash() {
+        return this.contentHash;
+    }
 
-        return this.letters[row][col];
+    /**
+     * @param cell the index of the cell
+     * @return the cell represented by bit 0 of the neighbor masks of the specified cell
+     */
+    public int getNeighborBase(final int cell) {
+        return this.layout.bases[cell];
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the mask of the non-empty cells adjacent to the specified cell, where bit {@code n} represents cell
+     *     {@code getNeighborBase(cell) + n}
+     */
+    public long getNeighbors(final int cell) {
+        return this.layout.neighbors[cell] & window(this.occupied, this.layout.bases[cell]);
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @param excluded the bitset of cells to leave out, such as the cells already used in a path
+     * @return the mask of the non-empty cells adjacent to the specified cell that are not excluded, where bit
+     *     {@code n} represents cell {@code getNeighborBase(cell) + n}
+     */
+    public long getNeighbors(final int cell, final long[] excluded) {
+        final int base = this.layout.bases[cell];
+        return this.layout.neighbors[cell] & window(this.occupied, base) & ~window(excluded, base);
     }
 
     /**
@@ -84,7 +332,7 @@ public class LetterGrid {
      * @return the letter west of the provided letter, possibly empty
      */
     public Optional<Letter> getNorthEast(final Letter letter) {
-        if (letter.getRow() == 0 || letter.getCol() == getSize() - 1) {
+        if (letter.getRow() == 0 || letter.getCol() == getCols() - 1) {
             return Optional.empty();
         }
 
@@ -96,7 +344,7 @@ public class LetterGrid {
      * @return the letter west of the provided letter, possibly empty
      */
     public Optional<Letter> getEast(final Letter letter) {
-        if (letter.getCol() == getSize() - 1) {
+        if (letter.getCol() == getCols() - 1) {
             return Optional.empty();
         }
 
@@ -108,7 +356,7 @@ public class LetterGrid {
      * @return the letter west of the provided letter, possibly empty
      */
     public Optional<Letter> getSouthEast(final Letter letter) {
-        if (letter.getRow() == getSize() - 1 || letter.getCol() == getSize() - 1) {
+        if (letter.getRow() == getRows() - 1 || letter.getCol() == getCols() - 1) {
             return Optional.empty();
         }
 
@@ -120,7 +368,7 @@ public class LetterGrid {
      * @return the letter west of the provided letter, possibly empty
      */
     public Optional<Letter> getSouth(final Letter letter) {
-        if (letter.getRow() == getSize() - 1) {
+        if (letter.getRow() == getRows() - 1) {
             return Optional.empty();
         }
 
@@ -132,7 +380,7 @@ public class LetterGrid {
      * @return the letter west of the provided letter, possibly empty
      */
     public Optional<Letter> getSouthWest(final Letter letter) {
-        if (letter.getRow() == getSize() - 1 || letter.getCol() == 0) {
+        if (letter.getRow() == getRows() - 1 || letter.getCol() == 0) {
             return Optional.empty();
         }
 
@@ -144,42 +392,60 @@ public class LetterGrid {
      * @return the adjacent non-empty letters
      */
     public List<Letter> getAdjacent(final Letter letter) {
-        final List<Optional<Letter>> adjacent = new ArrayList<>(8);
-        adjacent.add(getWest(letter));
-        adjacent.add(getNorthWest(letter));
-        adjacent.add(getNorth(letter));
-        adjacent.add(getNorthEast(letter));
-        adjacent.add(getEast(letter));
-        adjacent.add(getSouthEast(letter));
-        adjacent.add(getSouth(letter));
-        adjacent.add(getSouthWest(letter));
-        return adjacent.stream().filter(l -> l.isPresent() && !l.get().isEmpty()).map(l -> l.get())
-                .collect(Collectors.toList());
+        final List<Letter> adjacent = new ArrayList<>(8);
+        for (final int[] direction : DIRECTIONS) {
+            final int r = letter.getRow() + direction[0];
+            final int c = letter.getCol() + direction[1];
+            if (r >= 0 && r < getRows() && c >= 0 && c < getCols()) {
+                final Letter adj = this.letters[getCell(r, c)];
+                if (!adj.isEmpty()) {
+                    adjacent.add(adj);
+                }
+            }
+        }
+        return adjacent;
     }
 
     /**
      * @return the non-empty letters in this grid
      */
     public List<Letter> getLetters() {
-        final List<Letter> list = new ArrayList<>(getSize() * getSize());
-        for (int r = 0; r < getSize(); r++) {
-            for (int c = 0; c < getSize(); c++) {
-                final Letter l = get(r, c);
-                if (!l.isEmpty()) {
-                    list.add(l);
-                }
-            }
+        final List<Letter> list = new ArrayList<>(this.letterCount);
+        for (int cell = nextOccupied(0); cell >= 0; cell = nextOccupied(cell + 1)) {
+            list.add(this.letters[cell]);
         }
         return list;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (!(other instanceof LetterGrid)) {
+            return false;
+        }
+
+        final LetterGrid grid = (LetterGrid) other;
+        return getRows() == grid.getRows() && getCols() == grid.getCols() && getContentHash() == grid.getContentHash()
+                && Arrays.equals(this.chars, grid.chars);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getContentHash());
+    }
+
     /**
      * @return the separator string value for the {@code toString} implementation
      */
     private String getToStringSeparator() {
         final StringBuilder str = new StringBuilder();
         str.append("+");
-        for (int s = 0; s < getSize(); s++) {
+        for (int s = 0; s < getCols(); s++) {
             str.append("---+");
         }
         str.append(System.lineSeparator());
@@ -193,8 +459,8 @@ public class LetterGrid {
     public String toString() {
         final StringBuilder str = new StringBuilder();
         str.append(getToStringSeparator());
-        for (int r = 0; r < getSize(); r++) {
-            for (int c = 0; c < getSize(); c++) {
+        for (int r = 0; r < getRows(); r++) {
+            for (int c = 0; c < getCols(); c++) {
                 str.append("| ");
                 str.append(get(r, c));
                 str.append(" ");
@@ -206,37 +472,90 @@ public class LetterGrid {
         return str.toString();
     }
 
+    /**
+     * The precomputed neighbor masks of the cells in grids with one shape.
+     */
+    final static class Layout {
+        final int rows;
+        final int cols;
+        final long[] neighbors;
+        final int[] bases;
+
+        /**
+         * @param rows the number of rows in the grid
+         * @param cols the number of columns in the grid
+         */
+        Layout(final int rows, final int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            this.neighbors = new long[rows * cols];
+            this.bases = new int[rows * cols];
+
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    final int cell = r * cols + c;
+                    // The north-west neighbor is the lowest, kept low enough for the window to stay inside the grid.
+                    final int base = Math.max(0, Math.min(cell - cols - 1, rows * cols - 64));
+                    long mask = 0;
+                    for (int dr = -1; dr <= 1; dr++) {
+                        for (int dc = -1; dc <= 1; dc++) {
+                            final int nr = r + dr;
+                            final int nc = c + dc;
+                            if ((dr != 0 || dc != 0) && nr >= 0 && nr < rows && nc >= 0 && nc < cols) {
+                                mask |= 1L << (nr * cols + nc - base);
+                            }
+                        }
+                    }
+                    this.neighbors[cell] = mask;
+                    this.bases[cell] = base;
+                }
+            }
+        }
+    }
+
     /**
      * Used to build letter grids.
      */
     public static class Builder {
-        private final int size;
+        private final int rows;
+        private final int cols;
         private final Letter[][] letters;
 
         /**
          * @param other the letter grid to copy
          */
         public Builder(final LetterGrid other) {
-            this.size = Objects.requireNonNull(other).getSize();
-            this.letters = new Letter[this.size][this.size];
+            this.rows = Objects.requireNonNull(other).getRows();
+            this.cols = other.getCols();
+            this.letters = new Letter[this.rows][this.cols];
 
-            for (int r = 0; r < this.size; r++) {
-                for (int c = 0; c < this.size; c++) {
-                    this.letters[r][c] = other.get(r, c);
-                }
+            for (int r = 0; r < this.rows; r++) {
+                System.arraycopy(other.letters, r * this.cols, this.letters[r], 0, this.cols);
             }
         }
 
         /**
-         * @param size the size of the grid
+         * @param size the number of rows and columns of the square grid
          */
         public Builder(final int size) {
-            if (size < 0 || size > 8) {
-                throw new IllegalArgumentException("Invalid size: " + size);
+            this(size, size);
+        }
+
+        /**
+         * @param rows the number of rows in the grid
+         * @param cols the number of columns in the grid
+         */
+        public Builder(final int rows, final int cols) {
+            if (rows < 0 || rows > MAX_SIZE) {
+                throw new IllegalArgumentException("Invalid rows: " + rows);
+            }
+            if (cols < 0 || cols > MAX_SIZE) {
+                throw new IllegalArgumentException("Invalid columns: " + cols);
             }
 
-            this.size = size;
-            this.letters = new Letter[this.size][this.size];
+            this.rows = rows;
+            this.cols = cols;
+            this.letters = new Letter[this.rows][this.cols];
             clear();
         }
 
@@ -247,12 +566,9 @@ public class LetterGrid {
          * @return {@code this} for fluent-style usage
          */
         public Builder set(final int row, final int col, final char c) {
-            if (row >= this.size || col >= this.size) {
-                throw new IllegalArgumentException(
-                        String.format("Out of grid bounds: %d, %d (max: %d)", row, col, this.size - 1));
-            }
+            checkBounds(row, col);
 
-            this.letters[row][col] = new Letter.Builder(row, col, c).build();
+            this.letters[row][col] = Letter.valueOf(row, col, c);
             return this;
         }
 
@@ -262,16 +578,16 @@ public class LetterGrid {
          * @return {@code this} for fluent-style usage
          */
         public Builder setRow(final int row, final String line) {
-            if (row >= this.size) {
+            if (row >= this.rows) {
                 throw new IllegalArgumentException(
-                        String.format("Out of grid bounds: %d (max: %d)", row, this.size - 1));
+                        String.format("Out of grid bounds: %d (max: %d)", row, this.rows - 1));
             }
-            if (Objects.requireNonNull(line).length() != this.size) {
-                throw new IllegalArgumentException(String.format("Expected line to be length %d", this.size));
+            if (Objects.requireNonNull(line).length() != this.cols) {
+                throw new IllegalArgumentException(String.format("Expected line to be length %d", this.cols));
             }
 
             final char[] chars = line.toCharArray();
-            for (int c = 0; c < this.size; c++) {
+            for (int c = 0; c < this.cols; c++) {
                 set(row, c, chars[c]);
             }
             return this;
@@ -282,8 +598,8 @@ public class LetterGrid {
          * @return {@code this} for fluent-style usage
          */
         public Builder set(final String... rows) {
-            if (Objects.requireNonNull(rows).length != this.size) {
-                throw new IllegalArgumentException(String.format("Expected rows to be length %d", this.size));
+            if (Objects.requireNonNull(rows).length != this.rows) {
+                throw new IllegalArgumentException(String.format("Expected rows to be length %d", this.rows));
             }
             for (int r = 0; r < rows.length; r++) {
                 setRow(r, rows[r]);
@@ -297,8 +613,8 @@ public class LetterGrid {
          * @return {@code this} for fluent-style usage
          */
         public Builder clear() {
-            for (int r = 0; r < this.size; r++) {
-                for (int c = 0; c < this.size; c++) {
+            for (int r = 0; r < this.rows; r++) {
+                for (int c = 0; c < this.cols; c++) {
                     clear(r, c);
                 }
             }
@@ -332,38 +648,57 @@ public class LetterGrid {
          * @return {@code this} for fluent-style usage
          */
         public Builder clear(final int row, final int col) {
-            if (row >= this.size || col >= this.size) {
-                throw new IllegalArgumentException(
-                        String.format("Out of grid bounds: %d, %d (max: %d)", row, col, this.size - 1));
-            }
+            checkBounds(row, col);
 
-            this.letters[row][col] = new Letter.Builder(row, col).build();
+            this.letters[row][col] = Letter.valueOf(row, col, Letter.EMPTY);
             return this;
         }
 
         /**
-         * Make the letters fall through empty squares to the bottom of the grid.
+         * @param row the row of a cell
+         * @param col the column of a cell
+         */
+        private void checkBounds(final int row, final int col) {
+            if (row >= this.rows || col >= this.cols) {
+                throw new IllegalArgumentException(String.format("Out of grid bounds: %d, %d (max: %d, %d)", row, col,
+                        this.rows - 1, this.cols - 1));
+            }
+        }
+
+        /**
+         * Make the letters fall through empty squares to the bottom of the grid. Each column is compacted in a single
+         * pass from the bottom, so only the letters that actually fall are touched.
          * @return {@code this} for fluent-style usage
          */
         public Builder applyGravity() {
-            for (int i = 0; i < this.size; i++) {
-                for (int r = this.size - 2; r >= 0; r--) {
-                    for (int c = 0; c < this.size; c++) {
-                        if (!this.letters[r][c].isEmpty() && this.letters[r + 1][c].isEmpty()) {
-                            this.letters[r + 1][c] = new Letter.Builder(r + 1, c, this.letters[r][c].getChar()).build();
-                            this.letters[r][c] = new Letter.Builder(r, c).build();
-                        }
+            for (int c = 0; c < this.cols; c++) {
+                int bottom = this.rows - 1;
+                for (int r = this.rows - 1; r >= 0; r--) {
+                    final Letter letter = this.letters[r][c];
+                    if (letter.isEmpty()) {
+                        continue;
+                    }
+                    if (r != bottom) {
+                        this.letters[bottom][c] = Letter.valueOf(bottom, c, letter.getChar());
+                        this.letters[r][c] = Letter.valueOf(r, c, Letter.EMPTY);
                     }
+                    bottom--;
                 }
             }
             return this;
         }
 
         /**
-         * @return the created letter grid
+         * @return the created letter grid, with gravity applied so that no letter rests above an empty square
          */
         public LetterGrid build() {
-            return new LetterGrid(this.size, this.letters);
+            applyGravity();
+
+            final Letter[] cells = new Letter[this.rows * this.cols];
+            for (int r = 0; r < this.rows; r++) {
+                System.arraycopy(this.letters[r], 0, cells, r * this.cols, this.cols);
+            }
+            return new LetterGrid(this.rows, this.cols, cells);
         }
     }
 }
@@ -0,0 +1,122 @@
+package mday.wordbrain.model;
+
+import java.util.Objects;
+
+/**
+ * Summarizes the letters used by the words of each length in a {@link Trie}: which letters occur at all in words of
+ * a length, and the most times each letter occurs in any single word of that length. These allow a search to reject a
+ * set of letters that cannot possibly be split into words of the required lengths.
+ */
+final class LetterStatistics {
+    private final int maxLength;
+    private final int[] letterMasks;
+    private final byte[] maxCounts;
+
+    /**
+     * @param letterMasks the masks of letters occurring in words of each length
+     * @param maxCounts the maximum count of each letter in a single word of each length, indexed by
+     *     {@code length * ALPHABET + letter}
+     */
+    LetterStatistics(final int[] letterMasks, final byte[] maxCounts) {
+        this.maxLength = letterMasks.length - 1;
+        this.letterMasks = letterMasks;
+        this.maxCounts = maxCounts;
+    }
+
+    /**
+     * @param trie the trie containing the words to summarize
+     * @return the statistics for the words in the trie
+     */
+    static LetterStatistics of(final Trie trie) {
+        Objects.requireNonNull(trie);
+        final int maxLength = getMaxLength(trie, Trie.ROOT);
+        final int[] letterMasks = new int[maxLength + 1];
+        final byte[] maxCounts = new byte[(maxLength + 1) * Trie.ALPHABET];
+        collect(trie, Trie.ROOT, 0, new int[maxLength], new int[Trie.ALPHABET], letterMasks, maxCounts);
+        return new LetterStatistics(letterMasks, maxCounts);
+    }
+
+    /**
+     * @param trie the trie to walk
+     * @param node the current node handle
+     * @return the length of the longest word beneath the node
+     */
+    private static int getMaxLength(final Trie trie, final int node) {
+        int max = 0;
+        int child = trie.getFirstChild(node);
+        for (int mask = trie.getChildMask(node); mask != 0; mask &= mask - 1, child += Trie.STRIDE) {
+            max = Math.max(max, 1 + getMaxLength(trie, child));
+        }
+        return max;
+    }
+
+    /**
+     * Walk the trie depth-first, keeping the letters of the current path and their counts.
+     */
+    private static void collect(
+            final Trie trie, final int node, final int depth, final int[] path, final int[] counts,
+            final int[] letterMasks, final byte[] maxCounts) {
+        if (trie.isWord(node)) {
+            for (int i = 0; i < depth; i++) {
+                final int letter = path[i];
+                letterMasks[depth] |= 1 << letter;
+                final int index = depth * Trie.ALPHABET + letter;
+                maxCounts[index] = (byte) Math.max(maxCounts[index], counts[letter]);
+            }
+        }
+
+        int child = trie.getFirstChild(node);
+        for (int mask = trie.getChildMask(node); mask != 0; mask &= mask - 1, child += Trie.STRIDE) {
+            final int letter = Integer.numberOfTrailingZeros(mask);
+            path[depth] = letter;
+            counts[letter]++;
+            collect(trie, child, depth + 1, path, counts, letterMasks, maxCounts);
+            counts[letter]--;
+        }
+    }
+
+    /**
+     * @return the length of the longest word
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    /**
+     * @param length the word length
+     * @return the mask of letter indexes that occur in at least one word of the specified length
+     */
+    public int getLetterMask(final int length) {
+        return (length >= 0 && length <= this.maxLength) ? this.letterMasks[length] : 0;
+    }
+
+    /**
+     * @param length the word length
+     * @param letter the letter index, from 0 for {@code a} to 25 for {@code z}
+     * @return the most times the letter occurs in any single word of the specified length
+     */
+    public int getMaxCount(final int length, final int letter) {
+        return (length >= 0 && length <= this.maxLength) ? this.maxCounts[length * Trie.ALPHABET + letter] : 0;
+    }
+
+    /**
+     * @param letterCounts the number of each letter available, indexed by letter index
+     * @param wordLengths the lengths of the words that must use up all of the available letters
+     * @return {@code false} if the letters definitely cannot be split into words of the specified lengths
+     */
+    public boolean isFeasible(final int[] letterCounts, final Iterable<Integer> wordLengths) {
+        for (int letter = 0; letter < Trie.ALPHABET; letter++) {
+            final int count = letterCounts[letter];
+            if (count > 0) {
+                int capacity = 0;
+                for (final int length : wordLengths) {
+                    capacity += getMaxCount(length, letter);
+                }
+                if (capacity < count) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+package mday.wordbrain.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A WORDBRAIN puzzle: the letter grid along with the lengths of the words to find in it.
+ * <p>
+ * Puzzles have a single-line text form, the rows of the grid separated by {@code /} followed by whitespace and the
+ * word lengths separated by {@code ,}, with {@code .} marking an empty cell. For example:
+ * {@code TRAE/EHSN/RALP/ETAI 4,6,6}. The text form of a puzzle built by this class is canonical, since gravity has
+ * been applied to the grid, so two puzzles are equal exactly when their text forms are equal.
+ */
+public class Puzzle {
+    private final static char EMPTY = '.';
+
+    private final LetterGrid letterGrid;
+    private final List<Integer> wordLengths;
+
+    /**
+     * @param letterGrid the letter grid in which the words are found
+     * @param wordLengths the lengths of the words to find
+     */
+    private Puzzle(final LetterGrid letterGrid, final List<Integer> wordLengths) {
+        this.letterGrid = letterGrid;
+        this.wordLengths = Collections.unmodifiableList(new ArrayList<>(wordLengths));
+    }
+
+    /**
+     * @param line the text form of the puzzle
+     * @return the parsed puzzle
+     * @throws IllegalArgumentException if the line is not a valid puzzle
+     */
+    public static Puzzle parse(final String line) {
+        final String[] parts = Objects.requireNonNull(line).trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid puzzle: " + line);
+        }
+
+        final String[] rows = parts[0].replace(EMPTY, Letter.EMPTY).split("/");
+        if (rows.length == 0) {
+            throw new IllegalArgumentException("Invalid puzzle: " + line);
+        }
+
+        final int cols = rows[0].length();
+        final List<Integer> wordLengths = new ArrayList<>();
+        try {
+            for (final String length : parts[1].split(",")) {
+                wordLengths.add(Integer.parseInt(length));
+            }
+            return new Builder(new LetterGrid.Builder(rows.length, cols).set(rows).build(), wordLengths).build();
+        } catch (final IllegalArgumentException invalid) {
+            throw new IllegalArgumentException("Invalid puzzle: " + line, invalid);
+        }
+    }
+
+    /**
+     * @return the letter grid in which the words are found
+     */
+    public LetterGrid getLetterGrid() {
+        return this.letterGrid;
+    }
+
+    /**
+     * @return the lengths of the words to find
+     */
+    public List<Integer> getWordLengths() {
+        return this.wordLengths;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final int cols = this.letterGrid.getCols();
+        final StringBuilder str = new StringBuilder();
+        for (int cell = 0; cell < this.letterGrid.getCellCount(); cell++) {
+            if (cell > 0 && cell % cols == 0) {
+                str.append('/');
+            }
+            final Letter letter = this.letterGrid.get(cell);
+            str.append(letter.isEmpty() ? EMPTY : Character.toUpperCase(letter.getChar()));
+        }
+        for (int i = 0; i < this.wordLengths.size(); i++) {
+            str.append((i == 0) ? ' ' : ',').append(this.wordLengths.get(i));
+        }
+        return str.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Puzzle)) {
+            return false;
+        }
+
+        final Puzzle puzzle = (Puzzle) other;
+        return this.letterGrid.equals(puzzle.letterGrid) && this.wordLengths.equals(puzzle.wordLengths);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * this.letterGrid.hashCode() + this.wordLengths.hashCode();
+    }
+
+    /**
+     * Used to build puzzles.
+     */
+    public static class Builder {
+        private final LetterGrid letterGrid;
+        private final List<Integer> wordLengths;
+
+        /**
+         * @param letterGrid the letter grid in which the words are found
+         * @param wordLengths the lengths of the words to find
+         */
+        public Builder(final LetterGrid letterGrid, final List<Integer> wordLengths) {
+            this.letterGrid = Objects.requireNonNull(letterGrid);
+            this.wordLengths = new ArrayList<>(Objects.requireNonNull(wordLengths));
+        }
+
+        /**
+         * @return the created puzzle
+         */
+        public Puzzle build() {
+            if (this.wordLengths.isEmpty()) {
+                throw new IllegalStateException("No word lengths provided");
+            }
+            for (final int length : this.wordLengths) {
+                if (length < 1) {
+                    throw new IllegalArgumentException("Invalid word length: " + length);
+                }
+            }
+
+            return new Puzzle(this.letterGrid, this.wordLengths);
+        }
+    }
+}
@@ -1,8 +1,7 @@
 package mday.wordbrain.model;
 
-import org.apache.commons.lang3.StringUtils;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -10,29 +9,41 @@ import java.util.Objects;
 
 /**
  * Represents a single solution to the WORDBRAIN puzzle.
+ * <p>
+ * Solutions are immutable and ordered by the spelling of their words, matching the order of their string values,
+ * without building any strings: words are compared one at a time, a word sorts before any longer word it is a prefix
+ * of, and a solution sorts before any longer solution it is a prefix of. The hash code is consistent with that order
+ * and computed once.
  */
 public class Solution implements Comparable<Solution> {
-    private final List<Word> words;
+    private final Word[] words;
+    private final int hash;
 
     /**
      * @param words the words that make up the solution
      */
-    private Solution(final List<Word> words) {
-        this.words = new ArrayList<>(words);
+    private Solution(final Word[] words) {
+        this.words = words;
+
+        int hash = 1;
+        for (final Word word : words) {
+            hash = 31 * hash + word.spellingHashCode();
+        }
+        this.hash = hash;
     }
 
     /**
      * @return the words that make up the solution
      */
     public List<Word> getWords() {
-        return Collections.unmodifiableList(this.words);
+        return Collections.unmodifiableList(Arrays.asList(this.words));
     }
 
     /**
      * @return the number of words in this solution
      */
     public int getSize() {
-        return this.words.size();
+        return this.words.length;
     }
 
     /**
@@ -40,10 +51,11 @@ public class Solution implements Comparable<Solution> {
      */
     @Override
     public String toString() {
-        final List<String> strings = new ArrayList<>();
-        strings.add("Solution:");
-        getWords().forEach(word -> strings.add(word.toString()));
-        return StringUtils.join(strings, "  ");
+        final StringBuilder str = new StringBuilder("Solution:");
+        for (final Word word : this.words) {
+            str.append("  ").append(word);
+        }
+        return str.toString();
     }
 
     /**
@@ -55,7 +67,38 @@ public class Solution implements Comparable<Solution> {
             return 1;
         }
 
-        return toString().compareTo(other.toString());
+        final int length = Math.min(this.words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            final int cmp = this.words[i].compareSpelling(other.words[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return this.words.length - other.words.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Solution)) {
+            return false;
+        }
+
+        final Solution solution = (Solution) other;
+        return this.hash == solution.hash && compareTo(solution) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return this.hash;
     }
 
     /**
@@ -104,7 +147,7 @@ public class Solution implements Comparable<Solution> {
                 throw new IllegalStateException("No words provided");
             }
 
-            return new Solution(this.words);
+            return new Solution(this.words.toArray(new Word[this.words.size()]));
         }
     }
 }
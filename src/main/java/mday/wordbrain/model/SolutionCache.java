@@ -0,0 +1,330 @@
+package mday.wordbrain.model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the solutions of complete puzzles, keyed by the canonical text form of the puzzle (see {@link Puzzle}).
+ * The most recently used results are kept in memory, up to a maximum number of puzzles. Results can also be appended
+ * to a file, which is indexed when the cache is opened, so they survive restarts. Results evicted from memory are then
+ * read back from the file when requested again.
+ * <p>
+ * Only the memory tier is bounded. The file is never compacted, so it grows with every distinct puzzle solved, and the
+ * index of the file kept in memory holds the key and location of every line, growing with it. Delete the file to
+ * reclaim the space.
+ * <p>
+ * Each line of the file holds one puzzle: the puzzle text, a tab, and then the solutions separated by {@code |}. The
+ * words of a solution are separated by spaces, and each word is a comma-separated list of letters, each written as the
+ * character followed by {@code row.col}. A line left incomplete by a crash is discarded when the file is opened, and a
+ * line that cannot be decoded is treated as a miss, so the puzzle is solved again and appended.
+ */
+public class SolutionCache implements Closeable {
+    private final Map<String, SortedSet<Solution>> entries;
+    private final RandomAccessFile file;
+
+    /**
+     * The offset and length of the line of each puzzle in the file, with one entry per distinct puzzle ever written.
+     */
+    private final Map<String, long[]> offsets = new HashMap<>();
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder corruptLines = new LongAdder();
+
+    /**
+     * @param maxEntries the maximum number of puzzles whose solutions are kept in memory
+     */
+    public SolutionCache(final int maxEntries) {
+        this.entries = lru(maxEntries);
+        this.file = null;
+    }
+
+    /**
+     * @param maxEntries the maximum number of puzzles whose solutions are kept in memory
+     * @param file the file to which solutions are appended, created if it does not exist
+     * @throws IOException if the file could not be opened or read
+     */
+    public SolutionCache(final int maxEntries, final File file) throws IOException {
+        this.entries = lru(maxEntries);
+        this.file = new RandomAccessFile(Objects.requireNonNull(file), "rw");
+        try {
+            index(file);
+        } catch (final IOException failed) {
+            this.file.close();
+            throw failed;
+        }
+    }
+
+    /**
+     * @param maxEntries the maximum number of entries
+     * @return a map evicting its least recently used entry when it holds too many entries
+     */
+    private static Map<String, SortedSet<Solution>> lru(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Invalid maximum entries: " + maxEntries);
+        }
+
+        return new LinkedHashMap<String, SortedSet<Solution>>(16, 0.75f, true) {
+            private final static long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, SortedSet<Solution>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Record the offset and length of every complete line in the file, truncating any incomplete last line.
+     *
+     * @param path the file being indexed
+     */
+    private void index(final File path) throws IOException {
+        long offset = 0;
+        long position = 0;
+        final ByteArrayOutputStream key = new ByteArrayOutputStream();
+        boolean inKey = true;
+        try (final InputStream input = new BufferedInputStream(new FileInputStream(path))) {
+            for (int b = input.read(); b >= 0; b = input.read(), position++) {
+                if (b == '\n') {
+                    this.offsets.put(new String(key.toByteArray(), StandardCharsets.UTF_8),
+                            new long[] {offset, position - offset});
+                    key.reset();
+                    inKey = true;
+                    offset = position + 1;
+                } else if (b == '\t') {
+                    inKey = false;
+                } else if (inKey) {
+                    key.write(b);
+                }
+            }
+        }
+        this.file.setLength(offset);
+    }
+
+    /**
+     * @param puzzle the puzzle to look up
+     * @return the cached solutions of the puzzle, or {@code null} if not cached
+     * @throws IOException if the solutions could not be read from the file
+     */
+    public SortedSet<Solution> get(final Puzzle puzzle) throws IOException {
+        final String key = puzzle.toString();
+        synchronized (this.entries) {
+            final SortedSet<Solution> solutions = this.entries.get(key);
+            if (solutions != null) {
+                this.memoryHits.increment();
+                return solutions;
+            }
+        }
+
+        final SortedSet<Solution> solutions = read(key);
+        if (solutions == null) {
+            this.misses.increment();
+            return null;
+        }
+        this.diskHits.increment();
+        synchronized (this.entries) {
+            this.entries.put(key, solutions);
+        }
+        return solutions;
+    }
+
+    /**
+     * @param puzzle the puzzle that was solved
+     * @param solutions all of the solutions of the puzzle
+     * @return the cached, unmodifiable copy of the solutions
+     * @throws IOException if the solutions could not be appended to the file
+     */
+    public SortedSet<Solution> put(final Puzzle puzzle, final SortedSet<Solution> solutions) throws IOException {
+        final String key = puzzle.toString();
+        final SortedSet<Solution> copy = Collections.unmodifiableSortedSet(new TreeSet<>(solutions));
+        synchronized (this.entries) {
+            this.entries.put(key, copy);
+        }
+        write(key, copy);
+        return copy;
+    }
+
+    /**
+     * @param key the canonical text of the puzzle
+     * @return the solutions read from the file, or {@code null} if not present
+     */
+    private SortedSet<Solution> read(final String key) throws IOException {
+        if (this.file == null) {
+            return null;
+        }
+
+        final long[] location;
+        final byte[] bytes;
+        synchronized (this.file) {
+            location = this.offsets.get(key);
+            if (location == null) {
+                return null;
+            }
+            bytes = new byte[(int) location[1]];
+            this.file.seek(location[0]);
+            this.file.readFully(bytes);
+        }
+
+        final String line = new String(bytes, StandardCharsets.UTF_8);
+        try {
+            return decode(line.substring(line.indexOf('\t') + 1));
+        } catch (final RuntimeException corrupt) {
+            // Forget the damaged line, so the puzzle is solved again and a good line is appended.
+            synchronized (this.file) {
+                this.offsets.remove(key, location);
+            }
+            this.corruptLines.increment();
+            return null;
+        }
+    }
+
+    /**
+     * @param key the canonical text of the puzzle
+     * @param solutions the solutions to append to the file
+     */
+    private void write(final String key, final SortedSet<Solution> solutions) throws IOException {
+        if (this.file == null) {
+            return;
+        }
+
+        final String line = key + '\t' + encode(solutions);
+        final byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+        synchronized (this.file) {
+            if (this.offsets.containsKey(key)) {
+                return;
+            }
+            final long offset = this.file.length();
+            this.file.seek(offset);
+            this.file.write(bytes);
+            this.offsets.put(key, new long[] {offset, bytes.length - 1});
+        }
+    }
+
+    /**
+     * @param solutions the solutions to encode
+     * @return the text form of the solutions
+     */
+    private static String encode(final SortedSet<Solution> solutions) {
+        final StringBuilder str = new StringBuilder();
+        for (final Solution solution : solutions) {
+            if (str.length() > 0) {
+                str.append('|');
+            }
+            boolean firstWord = true;
+            for (final Word word : solution.getWords()) {
+                if (!firstWord) {
+                    str.append(' ');
+                }
+                firstWord = false;
+                boolean firstLetter = true;
+                for (final Letter letter : word.getLetters()) {
+                    if (!firstLetter) {
+                        str.append(',');
+                    }
+                    firstLetter = false;
+                    str.append(letter.getChar()).append(letter.getRow()).append('.').append(letter.getCol());
+                }
+            }
+        }
+        return str.toString();
+    }
+
+    /**
+     * @param text the text form of the solutions
+     * @return the decoded, unmodifiable solutions
+     */
+    private static SortedSet<Solution> decode(final String text) {
+        final SortedSet<Solution> solutions = new TreeSet<>();
+        if (!text.isEmpty()) {
+            for (final String encodedSolution : text.split("\\|")) {
+                final Solution.Builder solution = new Solution.Builder();
+                for (final String encodedWord : encodedSolution.split(" ")) {
+                    final Word.Builder word = new Word.Builder();
+                    for (final String letter : encodedWord.split(",")) {
+                        final int dot = letter.indexOf('.');
+                        word.add(Letter.valueOf(Integer.parseInt(letter.substring(1, dot)),
+                                Integer.parseInt(letter.substring(dot + 1)), letter.charAt(0)));
+                    }
+                    solution.add(word.build());
+                }
+                solutions.add(solution.build());
+            }
+        }
+        return Collections.unmodifiableSortedSet(solutions);
+    }
+
+    /**
+     * @return the number of puzzles whose solutions are held in memory
+     */
+    public int getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups answered from memory
+     */
+    public long getMemoryHits() {
+        return this.memoryHits.sum();
+    }
+
+    /**
+     * @return the number of lookups answered from the file
+     */
+    public long getDiskHits() {
+        return this.diskHits.sum();
+    }
+
+    /**
+     * @return the number of lookups for puzzles that were not cached
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of lines of the file that could not be decoded, each of which was counted as a miss
+     */
+    public long getCorruptLines() {
+        return this.corruptLines.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("size=%d memoryHits=%d diskHits=%d misses=%d corruptLines=%d", getSize(),
+                getMemoryHits(), getDiskHits(), getMisses(), getCorruptLines());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.file != null) {
+            synchronized (this.file) {
+                this.file.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package mday.wordbrain.model;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.SortedSet;
+
+/**
+ * The outcome of a solve that may have been cut short by a deadline or cancellation.
+ */
+public class SolveResult {
+    private final SortedSet<Solution> solutions;
+    private final boolean truncated;
+
+    /**
+     * @param solutions the complete solutions that were found
+     * @param truncated whether the search stopped before all of the solutions were found
+     */
+    SolveResult(final SortedSet<Solution> solutions, final boolean truncated) {
+        this.solutions = Collections.unmodifiableSortedSet(Objects.requireNonNull(solutions));
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return the complete solutions that were found, all of the solutions unless truncated
+     */
+    public SortedSet<Solution> getSolutions() {
+        return this.solutions;
+    }
+
+    /**
+     * @return whether the search stopped before all of the solutions were found
+     */
+    public boolean isTruncated() {
+        return this.truncated;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%d solutions%s", this.solutions.size(), this.truncated ? " (truncated)" : "");
+    }
+}
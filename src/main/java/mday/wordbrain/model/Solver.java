@@ -1,25 +1,67 @@
 package mday.wordbrain.model;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Solve the provided WORDBRAIN puzzle.
+ * <p>
+ * Internally each word to find is a slot: a word length together with an optional {@link WordHint}. A search state is
+ * the letter grid plus the ids of the slots still to be filled. When the words are found in order, every slot has its
+ * own id and the slots are filled first to last. When the words may be found in any order, identical slots share an id
+ * and the ids are kept sorted, so finding the same words in a different order leads to the same search state.
  */
 public class Solver {
+    /**
+     * The default number of levels of the search that are split into parallel tasks.
+     */
+    public final static int DEFAULT_SPLIT_DEPTH = 2;
+
+    /**
+     * The default maximum number of search states kept in the transposition table.
+     */
+    public final static int DEFAULT_TRANSPOSITION_TABLE_SIZE = 1 << 16;
+
+    /**
+     * Search states with more word sequences than this are not stored in the transposition table.
+     */
+    private final static int MAX_CACHED_PATHS = 1024;
+
+    /**
+     * The word search checks whether it should stop once every {@code STOP_CHECK_MASK + 1} nodes it expands.
+     */
+    private final static int STOP_CHECK_MASK = (1 << 12) - 1;
+
+    private final static char[] NO_PREFIX = new char[0];
+
     private final Dictionary dictionary;
     private final LetterGrid letterGrid;
-    private final List<Integer> wordLengths;
+    private final int[] slotLengths;
+    private final WordHint[] slotHints;
+    private final List<Integer> slots;
+    private final int parallelism;
+    private final int splitDepth;
+    private final boolean orderFree;
+    private final boolean feasibilityPruning;
+    private final TranspositionTable<List<Path>> transpositionTable;
 
     private final SortedSet<Word> allWords;
+    private final SolverStats stats;
 
     /**
      * @param dictionary the dictionary containing all of the known words
@@ -27,19 +69,146 @@ public class Solver {
      * @param wordLengths the length of the words to find in the letter grid
      */
     public Solver(final Dictionary dictionary, final LetterGrid letterGrid, final List<Integer> wordLengths) {
-        this.dictionary = Objects.requireNonNull(dictionary);
-        this.letterGrid = Objects.requireNonNull(letterGrid);
-        this.wordLengths = Objects.requireNonNull(wordLengths);
-        this.allWords = new TreeSet<>(new Word.SimpleComparator());
+        this(new Builder(dictionary, letterGrid, wordLengths));
+    }
+
+    /**
+     * @param builder the builder containing the configuration of the solver
+     */
+    private Solver(final Builder builder) {
+        this.letterGrid = builder.letterGrid;
+        this.dictionary = builder.restrictDictionary ? restrict(builder.dictionary, builder.letterGrid,
+                builder.wordLengths) : builder.dictionary;
+        this.parallelism = builder.parallelism;
+        this.splitDepth = builder.splitDepth;
+        this.orderFree = builder.orderFree;
+        this.feasibilityPruning = builder.feasibilityPruning;
+        this.transpositionTable = (builder.transpositionTableSize > 0)
+                ? new TranspositionTable<>(builder.transpositionTableSize) : null;
+        this.allWords = new ConcurrentSkipListSet<>(new Word.SimpleComparator());
+        this.stats = (builder.stats != null) ? builder.stats : new SolverStats();
+
+        final List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < builder.wordLengths.size(); i++) {
+            order.add(i);
+        }
+        if (this.orderFree) {
+            order.sort(Comparator.comparing(builder.wordLengths::get));
+        }
+
+        final List<Integer> lengths = new ArrayList<>();
+        final List<WordHint> hints = new ArrayList<>();
+        final List<Integer> slots = new ArrayList<>();
+        for (final int index : order) {
+            final int length = builder.wordLengths.get(index);
+            final WordHint hint = builder.hints[index];
+            int slot = lengths.size();
+            for (int other = 0; this.orderFree && other < lengths.size(); other++) {
+                if (lengths.get(other) == length && Objects.equals(hints.get(other), hint)) {
+                    slot = other;
+                }
+            }
+            if (slot == lengths.size()) {
+                lengths.add(length);
+                hints.add(hint);
+            }
+            slots.add(slot);
+        }
+        if (this.orderFree) {
+            Collections.sort(slots);
+        }
+        this.slotLengths = lengths.stream().mapToInt(Integer::intValue).toArray();
+        this.slotHints = hints.toArray(new WordHint[hints.size()]);
+        this.slots = Collections.unmodifiableList(slots);
+    }
+
+    /**
+     * @param dictionary the dictionary containing all of the known words
+     * @param letterGrid the letter grid representing the puzzle to solve
+     * @param wordLengths the length of the words to find in the letter grid
+     * @return the dictionary restricted to the letters in the grid and the requested word lengths
+     */
+    private static Dictionary restrict(
+            final Dictionary dictionary, final LetterGrid letterGrid, final List<Integer> wordLengths) {
+        final StringBuilder letters = new StringBuilder();
+        letterGrid.getLetters().forEach(letter -> letters.append(letter.getChar()));
+        return dictionary.restrict(letters, wordLengths);
     }
 
     /**
      * @return the identified words, empty if no solution was found
      */
     public SortedSet<Solution> solve() {
-        final List<Solution> solutions = solve(Optional.empty(), this.letterGrid, new ArrayList<>(this.wordLengths));
-        return new TreeSet<>(solutions.stream().filter(solution -> solution.getSize() == this.wordLengths.size())
-                .collect(Collectors.toList()));
+        final SortedSet<Solution> solutions = new TreeSet<>();
+        solve(solutions::add);
+        return solutions;
+    }
+
+    /**
+     * Streams complete solutions to the consumer as soon as they are found, rather than after the whole search has
+     * finished. The consumer is never invoked concurrently, even when searching in parallel. Paths of letters through
+     * the grid that spell the same word and leave the same letters behind are searched and provided only once, so
+     * solutions that spell the same words in different ways are only all provided when the ways leave different
+     * letters behind.
+     *
+     * @param consumer the consumer to receive each solution
+     * @return whether the search completed, {@code false} if it was stopped early
+     */
+    public boolean solve(final Consumer<Solution> consumer) {
+        return solve(consumer, solution -> false);
+    }
+
+    /**
+     * Streams complete solutions to the consumer as soon as they are found, stopping the search as soon as the stop
+     * condition is met. See {@link #solve(Consumer)}.
+     *
+     * @param consumer the consumer to receive each solution
+     * @param stopCondition tested after each solution has been consumed, the search stops when it returns true
+     * @return whether the search completed, {@code false} if it was stopped early
+     */
+    public boolean solve(final Consumer<Solution> consumer, final Predicate<Solution> stopCondition) {
+        return new Search(Objects.requireNonNull(consumer), Objects.requireNonNull(stopCondition), null, null).run();
+    }
+
+    /**
+     * @param timeout the maximum time to search
+     * @param unit the unit of the timeout
+     * @return the distinct solutions found before the timeout, flagged as truncated if the search did not complete
+     */
+    public SolveResult solve(final long timeout, final TimeUnit unit) {
+        return solve(timeout, unit, new CancellationToken());
+    }
+
+    /**
+     * The deadline and cancellation are checked periodically while searching, including while searching the grid for
+     * the words of a single search state, so the search ends shortly after either one.
+     *
+     * @param timeout the maximum time to search
+     * @param unit the unit of the timeout
+     * @param token used to cancel the search from another thread
+     * @return the distinct solutions found before the timeout or cancellation, flagged as truncated if the search did
+     *     not complete
+     */
+    public SolveResult solve(final long timeout, final TimeUnit unit, final CancellationToken token) {
+        final long deadline = System.nanoTime() + Objects.requireNonNull(unit).toNanos(timeout);
+        final SortedSet<Solution> solutions = new TreeSet<>();
+        final boolean complete =
+                new Search(solutions::add, solution -> false, deadline, Objects.requireNonNull(token)).run();
+        return new SolveResult(solutions, !complete);
+    }
+
+    /**
+     * @param limit the maximum number of solutions to find
+     * @return up to {@code limit} solutions, in the order they were found
+     */
+    public List<Solution> solve(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+
+        final List<Solution> solutions = new ArrayList<>();
+        solve(solutions::add, solution -> solutions.size() >= limit);
+        return solutions;
     }
 
     /**
@@ -49,66 +218,773 @@ public class Solver {
         return Collections.unmodifiableSortedSet(this.allWords);
     }
 
-    private List<Solution> solve(
-            final Optional<Solution> solution, final LetterGrid grid, final List<Integer> wordLengths) {
-        if (wordLengths.isEmpty()) {
-            return (solution.isPresent()) ? Arrays.asList(solution.get()) : Collections.emptyList();
+    /**
+     * @return the statistics describing the work done by this solver, accumulated over every solve
+     */
+    public SolverStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * @param grid the letter grid of the search state
+     * @param slots the slots of the words still to be found
+     * @return whether the search state was cut because the remaining letters cannot form words of the remaining
+     *     lengths
+     */
+    private boolean prune(final GridState grid, final List<Integer> slots) {
+        if (!this.feasibilityPruning) {
+            return false;
+        }
+
+        int total = 0;
+        for (final int slot : slots) {
+            total += this.slotLengths[slot];
+        }
+        final int letters = grid.getLetterCount();
+
+        final boolean feasible;
+        if (letters != total) {
+            // Letter counts only limit the words when every remaining letter has to be used.
+            feasible = letters > total;
+        } else {
+            final int[] counts = new int[Trie.ALPHABET];
+            boolean supported = true;
+            for (int cell = grid.nextOccupied(0); cell >= 0 && supported; cell = grid.nextOccupied(cell + 1)) {
+                final int letter = Trie.indexOf(grid.getChar(cell));
+                if (letter < 0) {
+                    supported = false;
+                } else {
+                    counts[letter]++;
+                }
+            }
+            final List<Integer> wordLengths = new ArrayList<>(slots.size());
+            slots.forEach(slot -> wordLengths.add(this.slotLengths[slot]));
+            feasible = supported && this.dictionary.getLetterStatistics().isFeasible(counts, wordLengths);
+        }
+
+        if (!feasible) {
+            this.stats.recordPrunedBranch();
+        }
+        return !feasible;
+    }
+
+    /**
+     * @param grid the letter grid of the search state
+     * @param slots the slots of the words still to be found
+     * @return the sequences of words previously found for the state, or {@code null} if not available
+     */
+    private List<Path> lookup(final GridState grid, final List<Integer> slots) {
+        return (this.transpositionTable == null) ? null : this.transpositionTable.get(grid, slots);
+    }
+
+    /**
+     * @param grid the letter grid of the search state
+     * @param slots the slots of the words still to be found
+     * @param paths the sequences of words found for the state, possibly {@code null} if not all are known
+     * @return the provided sequences of words
+     */
+    private List<Path> store(final GridState grid, final List<Integer> slots, final List<Path> paths) {
+        if (this.transpositionTable != null && paths != null) {
+            this.transpositionTable.put(grid, slots, Collections.unmodifiableList(paths));
         }
+        return paths;
+    }
 
-        final int wordLength = wordLengths.remove(0);
-        final List<Word> words = new LinkedList<>();
-        findWords(this.dictionary, grid, words, wordLength, new ArrayList<>());
-        this.allWords.addAll(words);
+    /**
+     * @param paths the sequences of words collected so far for a search state, {@code null} if not collecting
+     * @param words the interchangeable words that were removed from the grid
+     * @param suffixes the sequences of words found after removing the words, {@code null} if not all are known
+     * @return the updated sequences of words for the search state, {@code null} if they can no longer be collected
+     */
+    private static List<Path> collect(final List<Path> paths, final List<Word> words, final List<Path> suffixes) {
+        if (paths == null || suffixes == null || paths.size() + suffixes.size() > MAX_CACHED_PATHS) {
+            return null;
+        }
+        for (final Path suffix : suffixes) {
+            paths.add(new Path(words, suffix));
+        }
+        return paths;
+    }
 
-        final List<Solution> solutions = new ArrayList<>();
+    /**
+     * Groups the candidate words by the letter grid left behind after removing them, so the search beneath each
+     * distinct grid only happens once. Within a group only the first word of each spelling is kept, since the other
+     * paths for that spelling would lead to exactly the same solutions. Each word is removed and restored in place to
+     * find the hash of the grid it leaves behind, and words with the same hash are compared exactly.
+     *
+     * @param grid the letter grid in which the words were found, unchanged on return
+     * @param words the candidate words for the next slot
+     * @return the branches of the search, in the order their first word was found
+     */
+    private List<Branch> branch(final GridState grid, final List<Word> words) {
+        final List<Branch> branches = new ArrayList<>();
+        final Map<Long, Branch> byHash = new HashMap<>();
+        int collapsed = 0;
         for (final Word word : words) {
-            final Solution.Builder builder = new Solution.Builder();
-            if (solution.isPresent()) {
-                builder.add(solution.get().getWords());
+            grid.removeWordWithGravity(word);
+            final long hash = grid.getContentHash();
+            grid.undo();
+            this.stats.recordGridBuilt();
+
+            final Branch first = byHash.get(hash);
+            Branch branch = first;
+            while (branch != null && !grid.leavesSameGrid(branch.words.get(0), word)) {
+                branch = branch.collision;
+            }
+            if (branch == null) {
+                branch = new Branch(first);
+                byHash.put(hash, branch);
+                branches.add(branch);
+            }
+            if (branch.words.stream().anyMatch(word::isSpelledLike)) {
+                collapsed++;
+            } else {
+                branch.words.add(word);
             }
-            final Solution newSolution = builder.add(word).build();
+        }
+        this.stats.recordCollapsedPaths(collapsed);
+        return branches;
+    }
+
+    /**
+     * The words that leave the same letter grid behind, one for each distinct spelling. The first word is the one
+     * removed from the grid to search beneath the branch.
+     */
+    private static class Branch {
+        private final List<Word> words = new ArrayList<>(1);
+        private final Branch collision;
 
-            final LetterGrid newGrid = new LetterGrid.Builder(grid).clear(word).applyGravity().build();
-            final List<Solution> s = solve(Optional.of(newSolution), newGrid, new ArrayList<>(wordLengths));
-            solutions.addAll(s);
+        /**
+         * @param collision another branch whose grid has the same hash, or {@code null} if none
+         */
+        Branch(final Branch collision) {
+            this.collision = collision;
+        }
+    }
+
+    /**
+     * An immutable sequence of steps, where each step is one or more interchangeable words that leave the same letter
+     * grid behind, so a path stands for every combination of its words. Sequences found beneath a search state are
+     * linked from the first step to the last so they can be shared by every word that leads to that state, and the
+     * steps taken on the way to a search state are linked from the most recent step back to the first.
+     */
+    private static class Path {
+        private final static Path EMPTY = new Path(null, null);
+        private final static List<Path> COMPLETE = Collections.singletonList(EMPTY);
+
+        private final List<Word> words;
+        private final Path next;
+
+        /**
+         * @param words the interchangeable words at the head of the sequence
+         * @param next the remaining steps in the sequence
+         */
+        Path(final List<Word> words, final Path next) {
+            this.words = words;
+            this.next = next;
         }
-        return solutions;
     }
 
-    private void findWords(
-            final Dictionary dict, final LetterGrid grid, final List<Word> words, final int wordLength,
-            final List<Letter> letters) {
-        if (letters.size() == wordLength) {
-            final Word word = new Word.Builder(letters).build();
-            if (dict.exists(word)) {
-                words.add(word);
+    /**
+     * A single run of the search, delivering each complete solution to a consumer until the search is stopped.
+     */
+    private class Search {
+        private final Consumer<Solution> consumer;
+        private final Predicate<Solution> stopCondition;
+        private final Long deadline;
+        private final CancellationToken token;
+
+        private volatile boolean stopped = false;
+
+        /**
+         * @param consumer the consumer to receive each solution
+         * @param stopCondition tested after each solution has been consumed, the search stops when it returns true
+         * @param deadline the {@link System#nanoTime()} at which the search stops, or {@code null} if none
+         * @param token stops the search when cancelled, or {@code null} if none
+         */
+        Search(final Consumer<Solution> consumer, final Predicate<Solution> stopCondition, final Long deadline,
+                final CancellationToken token) {
+            this.consumer = consumer;
+            this.stopCondition = stopCondition;
+            this.deadline = deadline;
+            this.token = token;
+        }
+
+        /**
+         * @return whether the search has been stopped, stopping it first if the deadline has passed or the search has
+         *     been cancelled
+         */
+        boolean isStopped() {
+            if (!this.stopped && ((this.token != null && this.token.isCancelled())
+                    || (this.deadline != null && System.nanoTime() - this.deadline >= 0))) {
+                this.stopped = true;
             }
-            return;
+            return this.stopped;
         }
 
-        if (letters.isEmpty()) {
-            for (final Letter letter : grid.getLetters()) {
-                final LetterGrid newGrid = new LetterGrid.Builder(grid).clear(letter).build();
-                final List<Letter> newLetters = Arrays.asList(letter);
-                findWords(dict, newGrid, words, wordLength, newLetters);
+        /**
+         * @return whether the search completed, {@code false} if it was stopped early
+         */
+        boolean run() {
+            if (slots.isEmpty()) {
+                return true;
             }
-        } else {
-            final Word word = new Word.Builder(letters).build();
-            if (!dict.isPrefix(word)) {
-                // The word so far does not exist in the dictionary, no need to continue down this path.
+
+            final GridState grid = new GridState(letterGrid);
+            if (parallelism > 1) {
+                final ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    pool.invoke(new SolveTask(grid, slots, Path.EMPTY, 0));
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                search(grid, slots, Path.EMPTY);
+            }
+            return !this.stopped;
+        }
+
+        /**
+         * @param grid the letter grid in which the remaining words should be found, restored to its current contents
+         *     on return
+         * @param slots the slots of the remaining words to find
+         * @param found the words found so far, linked from the most recent word back to the first
+         * @return the sequences of words that solve the remaining puzzle, or {@code null} if they are not all known
+         *     because the search was stopped or there were too many to remember
+         */
+        List<Path> search(final GridState grid, final List<Integer> slots, final Path found) {
+            final long start = System.nanoTime();
+            try {
+                return expand(grid, slots, found);
+            } finally {
+                stats.recordTime(Solver.this.slots.size() - slots.size(), System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * @param grid the letter grid in which the remaining words should be found
+         * @param slots the slots of the remaining words to find
+         * @param found the words found so far, linked from the most recent word back to the first
+         * @return the sequences of words that solve the remaining puzzle, see {@link #search(GridState, List, Path)}
+         */
+        private List<Path> expand(final GridState grid, final List<Integer> slots, final Path found) {
+            if (slots.isEmpty()) {
+                emit(found, Path.EMPTY);
+                return Path.COMPLETE;
+            }
+            if (prune(grid, slots)) {
+                return Collections.emptyList();
+            }
+
+            final List<Path> cached = lookup(grid, slots);
+            if (cached != null) {
+                return replay(found, cached);
+            }
+            if (isStopped()) {
+                return null;
+            }
+
+            final List<Candidates> groups = findCandidates(grid, slots, this::isStopped);
+            stats.recordStateExpanded();
+
+            List<Path> paths = (transpositionTable != null) ? new ArrayList<>() : null;
+            for (final Candidates candidates : groups) {
+                allWords.addAll(candidates.words);
+                final List<Integer> remaining = getRemaining(slots, candidates.slot);
+                for (final Branch branch : branch(grid, candidates.words)) {
+                    if (this.stopped) {
+                        return null;
+                    }
+                    grid.removeWordWithGravity(branch.words.get(0));
+                    final List<Path> suffixes = search(grid, remaining, new Path(branch.words, found));
+                    grid.undo();
+                    paths = collect(paths, branch.words, suffixes);
+                }
+            }
+            return this.stopped ? null : store(grid, slots, paths);
+        }
+
+        /**
+         * @param found the words found so far, linked from the most recent word back to the first
+         * @param suffixes the previously found sequences of words that solve the remaining puzzle
+         * @return the provided sequences of words
+         */
+        List<Path> replay(final Path found, final List<Path> suffixes) {
+            for (final Path suffix : suffixes) {
+                if (this.stopped) {
+                    return null;
+                }
+                emit(found, suffix);
+            }
+            return suffixes;
+        }
+
+        /**
+         * Emits a solution for every combination of the interchangeable words along the steps.
+         *
+         * @param found the steps taken so far, linked from the most recent step back to the first
+         * @param suffix the remaining steps of the solution, linked from the first to the last
+         */
+        void emit(final Path found, final Path suffix) {
+            final LinkedList<List<Word>> steps = new LinkedList<>();
+            for (Path p = found; p != Path.EMPTY; p = p.next) {
+                steps.addFirst(p.words);
+            }
+            for (Path p = suffix; p != Path.EMPTY; p = p.next) {
+                steps.addLast(p.words);
+            }
+
+            final List<List<Word>> choices = new ArrayList<>(steps);
+            final int[] chosen = new int[choices.size()];
+            int step;
+            do {
+                final Solution.Builder solution = new Solution.Builder();
+                for (int i = 0; i < chosen.length; i++) {
+                    solution.add(choices.get(i).get(chosen[i]));
+                }
+                if (!accept(solution.build())) {
+                    return;
+                }
+
+                // Advance to the next combination, the last step varying fastest.
+                step = chosen.length - 1;
+                while (step >= 0 && ++chosen[step] == choices.get(step).size()) {
+                    chosen[step--] = 0;
+                }
+            } while (step >= 0);
+        }
+
+        /**
+         * @param solution the complete solution to deliver to the consumer
+         * @return whether the search continues
+         */
+        private synchronized boolean accept(final Solution solution) {
+            if (!this.stopped) {
+                this.consumer.accept(solution);
+                if (this.stopCondition.test(solution)) {
+                    this.stopped = true;
+                }
+            }
+            return !this.stopped;
+        }
+
+        /**
+         * Splits the top levels of the search into independent fork/join tasks, one for each branch, and
+         * runs the sequential search below the split depth. Each task works on its own copy of the grid.
+         */
+        private class SolveTask extends RecursiveTask<List<Path>> {
+            private final static long serialVersionUID = 1L;
+
+            private final GridState grid;
+            private final List<Integer> slots;
+            private final Path found;
+            private final int depth;
+
+            /**
+             * @param grid the letter grid in which the remaining words should be found
+             * @param slots the slots of the remaining words to find
+             * @param found the words found so far, linked from the most recent word back to the first
+             * @param depth the number of words found before this task
+             */
+            SolveTask(final GridState grid, final List<Integer> slots, final Path found, final int depth) {
+                this.grid = grid;
+                this.slots = slots;
+                this.found = found;
+                this.depth = depth;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected List<Path> compute() {
+                if (isStopped()) {
+                    return null;
+                }
+                if (this.depth >= splitDepth || this.slots.isEmpty()) {
+                    return search(this.grid, this.slots, this.found);
+                }
+
+                final long start = System.nanoTime();
+                try {
+                    return split();
+                } finally {
+                    stats.recordTime(this.depth, System.nanoTime() - start);
+                }
+            }
+
+            /**
+             * @return the sequences of words that solve the remaining puzzle, see
+             *     {@link #search(GridState, List, Path)}
+             */
+            private List<Path> split() {
+                if (prune(this.grid, this.slots)) {
+                    return Collections.emptyList();
+                }
+
+                final List<Path> cached = lookup(this.grid, this.slots);
+                if (cached != null) {
+                    return replay(this.found, cached);
+                }
+
+                final List<Candidates> groups = findCandidates(this.grid, this.slots, Search.this::isStopped);
+                stats.recordStateExpanded();
+
+                final List<Branch> branches = new ArrayList<>();
+                final List<SolveTask> tasks = new ArrayList<>();
+                for (final Candidates candidates : groups) {
+                    allWords.addAll(candidates.words);
+                    final List<Integer> remaining = getRemaining(this.slots, candidates.slot);
+                    for (final Branch branch : branch(this.grid, candidates.words)) {
+                        final GridState next = this.grid.copy();
+                        next.removeWordWithGravity(branch.words.get(0));
+                        branches.add(branch);
+                        tasks.add(new SolveTask(next, remaining, new Path(branch.words, this.found),
+                                this.depth + 1));
+                    }
+                }
+
+                List<Path> paths = (transpositionTable != null) ? new ArrayList<>() : null;
+                int index = 0;
+                for (final SolveTask task : invokeAll(tasks)) {
+                    paths = collect(paths, branches.get(index++).words, task.join());
+                }
+                return stopped ? null : store(this.grid, this.slots, paths);
+            }
+        }
+    }
+
+    /**
+     * @param grid the letter grid in which the next word should be found
+     * @param slots the slots of the words still to be found
+     * @param stopped checked periodically, the search ends early when it returns true
+     * @return the candidates for the next word, grouped by the slot they fill, when the words may be found in any
+     *     order this includes a group for every distinct remaining slot with the groups that have the fewest
+     *     candidates first, only some of them if the search ended early
+     */
+    private List<Candidates> findCandidates(
+            final GridState grid, final List<Integer> slots, final BooleanSupplier stopped) {
+        final List<Candidates> groups = new ArrayList<>();
+        for (int i = 0; i < slots.size(); i++) {
+            if (i == 0 || (this.orderFree && !slots.get(i).equals(slots.get(i - 1)))) {
+                final int slot = slots.get(i);
+                groups.add(new Candidates(slot,
+                        findWords(grid, this.slotLengths[slot], this.slotHints[slot], stopped)));
+            }
+        }
+        groups.sort(Comparator.comparingInt(candidates -> candidates.words.size()));
+        return groups;
+    }
+
+    /**
+     * @param slots the slots of the words still to be found
+     * @param slot the slot filled by the next word
+     * @return the slots of the words still to be found after the next word
+     */
+    private List<Integer> getRemaining(final List<Integer> slots, final int slot) {
+        if (!this.orderFree) {
+            return slots.subList(1, slots.size());
+        }
+
+        final List<Integer> remaining = new ArrayList<>(slots);
+        remaining.remove(Integer.valueOf(slot));
+        return remaining;
+    }
+
+    /**
+     * The words found in a grid that can fill a slot.
+     */
+    private static class Candidates {
+        private final int slot;
+        private final List<Word> words;
+
+        /**
+         * @param slot the slot the words can fill
+         * @param words the words found for the slot
+         */
+        Candidates(final int slot, final List<Word> words) {
+            this.slot = slot;
+            this.words = words;
+        }
+    }
+
+    /**
+     * @param grid the letter grid in which words should be found
+     * @param wordLength the length of the words to find
+     * @return all of the paths through the grid that spell a word of the requested length
+     */
+    List<Word> findWords(final LetterGrid grid, final int wordLength) {
+        return findWords(new GridState(grid), wordLength, null, () -> false);
+    }
+
+    /**
+     * @param grid the letter grid in which words should be found
+     * @param wordLength the length of the words to find
+     * @param hint the constraint the words must satisfy, or {@code null} if none
+     * @param stopped checked periodically, the search ends early when it returns true
+     * @return all of the paths through the grid that spell a word of the requested length and satisfy the hint, only
+     *     some of them if the search ended early
+     */
+    private List<Word> findWords(
+            final GridState grid, final int wordLength, final WordHint hint, final BooleanSupplier stopped) {
+        final WordSearch search = new WordSearch(grid, wordLength, hint, stopped);
+        search.run();
+        this.stats.recordWordSearch(wordLength, search.nodes, search.lookups, search.misses, search.words.size());
+        return search.words;
+    }
+
+    /**
+     * Depth-first search for the words of one length, where the path state is a visited bitset plus a path array
+     * shared across the whole recursion, so nothing is allocated until a word is found. A path is only extended while
+     * a word of the target length can still be reached from its dictionary node.
+     */
+    private class WordSearch {
+        private final GridState grid;
+        private final int[] path;
+        private final long[] visited;
+        private final char[] prefix;
+        private final int start;
+        private final BooleanSupplier stopped;
+        private final List<Word> words = new LinkedList<>();
+
+        private long nodes = 0;
+        private long lookups = 0;
+        private long misses = 0;
+        private boolean aborted = false;
+
+        /**
+         * @param grid the letter grid in which words should be found
+         * @param wordLength the length of the words to find
+         * @param hint the constraint the words must satisfy, or {@code null} if none
+         * @param stopped checked periodically, the search ends early when it returns true
+         */
+        WordSearch(final GridState grid, final int wordLength, final WordHint hint, final BooleanSupplier stopped) {
+            this.grid = grid;
+            this.path = new int[wordLength];
+            this.visited = new long[LetterGrid.wordCount(grid.getCellCount())];
+            this.prefix = (hint != null) ? hint.getPrefixChars() : NO_PREFIX;
+            this.start = (hint != null && hint.hasStartCell())
+                    ? grid.getCell(hint.getStartRow(), hint.getStartCol())
+                    : -1;
+            this.stopped = stopped;
+        }
+
+        /**
+         * Find the words starting from every allowed cell.
+         */
+        void run() {
+            if (this.start >= 0) {
+                if (this.grid.isOccupied(this.start)) {
+                    startAt(this.start);
+                }
+                return;
+            }
+            for (int cell = this.grid.nextOccupied(0); cell >= 0 && !this.aborted;
+                 cell = this.grid.nextOccupied(cell + 1)) {
+                startAt(cell);
+            }
+        }
+
+        /**
+         * @param cell the non-empty cell holding the first letter of the words
+         */
+        private void startAt(final int cell) {
+            final char c = this.grid.getChar(cell);
+            if (this.prefix.length > 0 && c != this.prefix[0]) {
+                return;
+            }
+            final int node = dictionary.getChild(dictionary.getRoot(), c);
+            this.lookups++;
+            if (node != Dictionary.NONE && dictionary.canReach(node, this.path.length)) {
+                this.path[0] = cell;
+                this.visited[cell >>> 6] |= 1L << cell;
+                extend(1, node);
+                this.visited[cell >>> 6] &= ~(1L << cell);
             } else {
-                final Letter letter = letters.get(letters.size() - 1);
+                this.misses++;
+            }
+        }
 
-                final List<Letter> adjacent = grid.getAdjacent(letter);
-                for (final Letter adj : adjacent) {
-                    final List<Letter> combined = new ArrayList<>(letters.size() + 1);
-                    combined.addAll(letters);
-                    combined.add(adj);
+        /**
+         * @param depth the number of letters in the current path, whose cells are the first {@code depth} entries of
+         *     the path array
+         * @param node the dictionary node handle representing the current path, whose cells are also set in the
+         *     visited bitset
+         */
+        private void extend(final int depth, final int node) {
+            if ((++this.nodes & STOP_CHECK_MASK) == 0 && this.stopped.getAsBoolean()) {
+                this.aborted = true;
+                return;
+            }
+            if (depth == this.path.length) {
+                if (dictionary.isWord(node)) {
+                    final Word.Builder word = new Word.Builder();
+                    for (final int cell : this.path) {
+                        word.add(this.grid.get(cell));
+                    }
+                    this.words.add(word.build());
+                }
+                return;
+            }
 
-                    final LetterGrid newGrid = new LetterGrid.Builder(grid).clear(adj).build();
-                    findWords(dict, newGrid, words, wordLength, combined);
+            final int last = this.path[depth - 1];
+            final int base = this.grid.getNeighborBase(last);
+            for (long next = this.grid.getNeighbors(last, this.visited); next != 0 && !this.aborted;
+                 next &= next - 1) {
+                final int cell = base + Long.numberOfTrailingZeros(next);
+                final char c = this.grid.getChar(cell);
+                if (depth < this.prefix.length && c != this.prefix[depth]) {
+                    continue;
+                }
+                final int child = dictionary.getChild(node, c);
+                this.lookups++;
+                if (child != Dictionary.NONE && dictionary.canReach(child, this.path.length)) {
+                    this.path[depth] = cell;
+                    this.visited[cell >>> 6] |= 1L << cell;
+                    extend(depth + 1, child);
+                    this.visited[cell >>> 6] &= ~(1L << cell);
+                } else {
+                    this.misses++;
                 }
             }
         }
     }
+
+    /**
+     * Used to build solvers.
+     */
+    public static class Builder {
+        private final Dictionary dictionary;
+        private final LetterGrid letterGrid;
+        private final List<Integer> wordLengths;
+        private final WordHint[] hints;
+        private int parallelism = 1;
+        private int splitDepth = DEFAULT_SPLIT_DEPTH;
+        private int transpositionTableSize = DEFAULT_TRANSPOSITION_TABLE_SIZE;
+        private boolean orderFree = false;
+        private boolean feasibilityPruning = true;
+        private boolean restrictDictionary = false;
+        private SolverStats stats;
+
+        /**
+         * @param dictionary the dictionary containing all of the known words
+         * @param letterGrid the letter grid representing the puzzle to solve
+         * @param wordLengths the length of the words to find in the letter grid
+         */
+        public Builder(final Dictionary dictionary, final LetterGrid letterGrid, final List<Integer> wordLengths) {
+            this.dictionary = Objects.requireNonNull(dictionary);
+            this.letterGrid = Objects.requireNonNull(letterGrid);
+            this.wordLengths = new ArrayList<>(Objects.requireNonNull(wordLengths));
+            this.hints = new WordHint[this.wordLengths.size()];
+        }
+
+        /**
+         * @param index the index of the word in the word lengths to which the hint applies, when the words may be
+         *     found in any order the hint applies to one of the words with that length
+         * @param hint the constraint the word must satisfy, or {@code null} to remove a previous constraint
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setHint(final int index, final WordHint hint) {
+            if (index < 0 || index >= this.wordLengths.size()) {
+                throw new IllegalArgumentException("Invalid hint index: " + index);
+            }
+            if (hint != null && !hint.allows(this.wordLengths.get(index))) {
+                throw new IllegalArgumentException("Invalid hint for length " + this.wordLengths.get(index) + ": "
+                        + hint);
+            }
+            if (hint != null && hint.hasStartCell() && (hint.getStartRow() >= this.letterGrid.getRows()
+                    || hint.getStartCol() >= this.letterGrid.getCols())) {
+                throw new IllegalArgumentException("Invalid hint start cell: " + hint);
+            }
+
+            this.hints[index] = hint;
+            return this;
+        }
+
+        /**
+         * @param parallelism the number of threads used to search, 1 to search on the calling thread
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setParallelism(final int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+            }
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param splitDepth the number of levels of the search that are split into parallel tasks
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setSplitDepth(final int splitDepth) {
+            if (splitDepth < 0) {
+                throw new IllegalArgumentException("Invalid split depth: " + splitDepth);
+            }
+
+            this.splitDepth = splitDepth;
+            return this;
+        }
+
+        /**
+         * @param transpositionTableSize the maximum number of search states whose results are remembered and reused
+         *     when the same grid contents and remaining word lengths are reached again, 0 to disable
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setTranspositionTableSize(final int transpositionTableSize) {
+            if (transpositionTableSize < 0) {
+                throw new IllegalArgumentException("Invalid transposition table size: " + transpositionTableSize);
+            }
+
+            this.transpositionTableSize = transpositionTableSize;
+            return this;
+        }
+
+        /**
+         * @param orderFree whether the words may be found in any order, rather than in the order of the word lengths
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setOrderFree(final boolean orderFree) {
+            this.orderFree = orderFree;
+            return this;
+        }
+
+        /**
+         * @param feasibilityPruning whether to cut search branches where the letters left in the grid cannot form
+         *     words of the remaining lengths, based on the per-length letter statistics of the dictionary
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setFeasibilityPruning(final boolean feasibilityPruning) {
+            this.feasibilityPruning = feasibilityPruning;
+            return this;
+        }
+
+        /**
+         * @param restrictDictionary whether to search a small dictionary derived for this puzzle, containing only the
+         *     words of the requested lengths that can be spelled with the letters in the grid
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setRestrictDictionary(final boolean restrictDictionary) {
+            this.restrictDictionary = restrictDictionary;
+            return this;
+        }
+
+        /**
+         * @param stats the statistics to which the solver adds the work it does, which may be shared with other
+         *     solvers, or {@code null} for the solver to keep its own
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setStats(final SolverStats stats) {
+            this.stats = stats;
+            return this;
+        }
+
+        /**
+         * @return the created solver
+         */
+        public Solver build() {
+            return new Solver(this);
+        }
+    }
 }
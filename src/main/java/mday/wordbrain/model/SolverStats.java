@@ -0,0 +1,265 @@
+package mday.wordbrain.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters describing the work done by a {@link Solver}. The counters are striped ({@link LongAdder}) and the word
+ * search accumulates its counts locally before adding them, so the statistics are cheap enough to always collect,
+ * including when searching in parallel. One instance may be shared by many solvers to collect totals across them.
+ * <p>
+ * Word lengths and search depths of {@link #MAX_TRACKED} or more are counted together in the last entry of the
+ * per-length and per-depth counters.
+ */
+public class SolverStats implements SolverStatsMXBean {
+    /**
+     * The number of word lengths and search depths tracked individually.
+     */
+    public final static int MAX_TRACKED = 32;
+
+    private final LongAdder statesExpanded = new LongAdder();
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder prefixLookups = new LongAdder();
+    private final LongAdder prefixMisses = new LongAdder();
+    private final LongAdder prunedBranches = new LongAdder();
+    private final LongAdder gridsBuilt = new LongAdder();
+    private final LongAdder collapsedPaths = new LongAdder();
+    private final LongAdder[] wordsFound = adders();
+    private final LongAdder[] timeByDepth = adders();
+
+    /**
+     * @return a new array of counters, one for each tracked length or depth
+     */
+    private static LongAdder[] adders() {
+        final LongAdder[] adders = new LongAdder[MAX_TRACKED];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * @param adders the counters to sum
+     * @return the current sum of each counter, without the trailing counters that are zero
+     */
+    private static long[] sums(final LongAdder[] adders) {
+        final long[] sums = new long[adders.length];
+        int length = 0;
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+            if (sums[i] != 0) {
+                length = i + 1;
+            }
+        }
+        final long[] trimmed = new long[length];
+        System.arraycopy(sums, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    /**
+     * @param index the word length or search depth
+     * @return the index of the counter tracking the length or depth
+     */
+    private static int bucket(final int index) {
+        return Math.min(index, MAX_TRACKED - 1);
+    }
+
+    /**
+     * @param wordLength the length of the words searched for
+     * @param nodes the number of letter paths extended by the search
+     * @param lookups the number of dictionary lookups made by the search
+     * @param misses the number of dictionary lookups that did not lead to a word of the length
+     * @param words the number of words found
+     */
+    void recordWordSearch(
+            final int wordLength, final long nodes, final long lookups, final long misses, final int words) {
+        this.nodesExpanded.add(nodes);
+        this.prefixLookups.add(lookups);
+        this.prefixMisses.add(misses);
+        this.wordsFound[bucket(wordLength)].add(words);
+    }
+
+    /**
+     * Record a search state whose candidate words were searched for.
+     */
+    void recordStateExpanded() {
+        this.statesExpanded.increment();
+    }
+
+    /**
+     * Record a search branch cut by feasibility pruning.
+     */
+    void recordPrunedBranch() {
+        this.prunedBranches.increment();
+    }
+
+    /**
+     * Record a candidate word removed from a grid.
+     */
+    void recordGridBuilt() {
+        this.gridsBuilt.increment();
+    }
+
+    /**
+     * @param paths the number of candidate paths folded into a branch searched for another path
+     */
+    void recordCollapsedPaths(final int paths) {
+        this.collapsedPaths.add(paths);
+    }
+
+    /**
+     * @param depth the number of words found before the search state
+     * @param nanos the time spent in the search state, including the states beneath it
+     */
+    void recordTime(final int depth, final long nanos) {
+        this.timeByDepth[bucket(depth)].add(nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getStatesExpanded() {
+        return this.statesExpanded.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNodesExpanded() {
+        return this.nodesExpanded.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPrefixLookups() {
+        return this.prefixLookups.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPrefixMisses() {
+        return this.prefixMisses.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getWordsFoundByLength() {
+        return sums(this.wordsFound);
+    }
+
+    /**
+     * @return the total number of words found in the grid
+     */
+    public long getWordsFound() {
+        long total = 0;
+        for (final LongAdder adder : this.wordsFound) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPrunedBranches() {
+        return this.prunedBranches.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getGridsBuilt() {
+        return this.gridsBuilt.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCollapsedPaths() {
+        return this.collapsedPaths.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long[] getTimeByDepth() {
+        return sums(this.timeByDepth);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        for (final LongAdder adder : new LongAdder[] {this.statesExpanded, this.nodesExpanded, this.prefixLookups,
+                this.prefixMisses, this.prunedBranches, this.gridsBuilt, this.collapsedPaths}) {
+            adder.reset();
+        }
+        for (int i = 0; i < MAX_TRACKED; i++) {
+            this.wordsFound[i].reset();
+            this.timeByDepth[i].reset();
+        }
+    }
+
+    /**
+     * @param name the name identifying these statistics
+     * @return the name under which these statistics were registered with the platform MBean server
+     * @throws JMException if the statistics could not be registered
+     */
+    public ObjectName register(final String name) throws JMException {
+        final ObjectName objectName = new ObjectName("mday.wordbrain:type=SolverStats,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * @return a multi-line summary of the statistics
+     */
+    public String getSummary() {
+        final StringBuilder str = new StringBuilder();
+        str.append(String.format("States expanded: %d%n", getStatesExpanded()));
+        str.append(String.format("Nodes expanded: %d%n", getNodesExpanded()));
+        str.append(String.format("Prefix lookups: %d (%d misses)%n", getPrefixLookups(), getPrefixMisses()));
+        str.append(String.format("Grids built: %d (%d paths collapsed)%n", getGridsBuilt(), getCollapsedPaths()));
+        str.append(String.format("Branches pruned: %d%n", getPrunedBranches()));
+
+        str.append("Words found by length:");
+        final long[] words = getWordsFoundByLength();
+        for (int length = 0; length < words.length; length++) {
+            if (words[length] != 0) {
+                str.append(String.format(" %d=%d", length, words[length]));
+            }
+        }
+
+        str.append(String.format("%nTime by depth (ms):"));
+        final long[] time = getTimeByDepth();
+        for (int depth = 0; depth < time.length; depth++) {
+            str.append(String.format(" %d=%d", depth, TimeUnit.NANOSECONDS.toMillis(time[depth])));
+        }
+        return str.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
@@ -0,0 +1,59 @@
+package mday.wordbrain.model;
+
+/**
+ * The management interface through which {@link SolverStats} are exported over JMX.
+ */
+public interface SolverStatsMXBean {
+    /**
+     * @return the number of search states whose words have been searched for
+     */
+    long getStatesExpanded();
+
+    /**
+     * @return the number of letter paths extended while searching the grid for words
+     */
+    long getNodesExpanded();
+
+    /**
+     * @return the number of dictionary lookups made to extend a letter path
+     */
+    long getPrefixLookups();
+
+    /**
+     * @return the number of dictionary lookups that did not lead to a word of the requested length
+     */
+    long getPrefixMisses();
+
+    /**
+     * @return the number of words found in the grid, for each word length
+     */
+    long[] getWordsFoundByLength();
+
+    /**
+     * @return the number of search branches cut because the letters left in the grid could not form words of the
+     *     remaining lengths
+     */
+    long getPrunedBranches();
+
+    /**
+     * @return the number of candidate words removed from a grid to find the letters they leave behind
+     */
+    long getGridsBuilt();
+
+    /**
+     * @return the number of candidate paths that were not searched separately because another path with the same
+     *     spelling left the same letters behind
+     */
+    long getCollapsedPaths();
+
+    /**
+     * @return the time in nanoseconds spent in search states at each depth, including the states beneath them and
+     *     summed across threads when searching in parallel
+     */
+    long[] getTimeByDepth();
+
+    /**
+     * Reset all of the counters to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,137 @@
+package mday.wordbrain.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the results found beneath a search state, where a state is the contents of the letter grid
+ * together with the lengths of the words still to be found. Different words, and different paths for the same word,
+ * often leave identical grids behind, so the result for a state can be reused instead of searched again. When the
+ * table is full the least recently used entry is evicted. Lookups read the characters of the grid in place, and only
+ * storing a result copies them, since the grid keeps changing as the search backtracks.
+ *
+ * @param <V> the type of result stored for each state
+ */
+final class TranspositionTable<V> {
+    private final Map<State, V> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries the maximum number of states to keep in the table
+     */
+    TranspositionTable(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Invalid maximum entries: " + maxEntries);
+        }
+
+        this.entries = new LinkedHashMap<State, V>(16, 0.75f, true) {
+            private final static long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<State, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param grid the letter grid of the state
+     * @param wordLengths the lengths of the words still to be found
+     * @return the result stored for the state, or {@code null} if not present
+     */
+    public V get(final GridState grid, final List<Integer> wordLengths) {
+        final V value;
+        synchronized (this.entries) {
+            value = this.entries.get(new State(grid.getContentHash(), grid.getChars(), wordLengths));
+        }
+        if (value == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * @param grid the letter grid of the state
+     * @param wordLengths the lengths of the words still to be found
+     * @param value the result to store for the state
+     */
+    public void put(final GridState grid, final List<Integer> wordLengths, final V value) {
+        final State state = new State(grid.getContentHash(), grid.getChars().clone(), new ArrayList<>(wordLengths));
+        synchronized (this.entries) {
+            this.entries.put(state, Objects.requireNonNull(value));
+        }
+    }
+
+    /**
+     * @return the number of states currently stored
+     */
+    public int getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups that found a stored result
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find a stored result
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * The key of a table entry.
+     */
+    private static class State {
+        private final char[] chars;
+        private final List<Integer> wordLengths;
+        private final int hash;
+
+        /**
+         * @param contentHash the Zobrist hash of the characters in the grid
+         * @param chars the characters in the cells of the grid
+         * @param wordLengths the lengths of the words still to be found
+         */
+        State(final long contentHash, final char[] chars, final List<Integer> wordLengths) {
+            this.chars = chars;
+            this.wordLengths = wordLengths;
+            this.hash = 31 * Long.hashCode(contentHash) + wordLengths.hashCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof State)) {
+                return false;
+            }
+
+            final State state = (State) other;
+            return this.hash == state.hash && Arrays.equals(this.chars, state.chars)
+                    && this.wordLengths.equals(state.wordLengths);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package mday.wordbrain.model;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable, array-backed trie over the 26 lowercase letters {@code a} through {@code z}.
+ * <p>
+ * Every node occupies {@link #STRIDE} consecutive ints in a single flat array and is identified by the index of its
+ * first int (a node handle). The first int holds a 26-bit mask of the letters that have a child node plus a flag
+ * marking the end of a word, the second int holds the handle of the first child, and the third int holds a mask of
+ * the lengths of the words that end at or beneath the node (see {@link #canReach(int, int)}). Nodes are laid out in
+ * breadth-first order so the children of a node are contiguous and sorted by letter, which means the child for a
+ * letter is found with one mask test and one population count.
+ * <p>
+ * Memory footprint: {@code 4 * STRIDE} bytes per node (12 bytes), with no per-node objects. Lookup cost: a child lookup
+ * is a constant number of integer operations and one array read, independent of the number of children.
+ * <p>
+ * The node values are either held in a heap array or read directly from a memory-mapped snapshot file, see
+ * {@link DictionarySnapshot}.
+ */
+abstract class Trie {
+    /**
+     * The handle of the root node.
+     */
+    public final static int ROOT = 0;
+
+    /**
+     * The handle returned when a node does not exist.
+     */
+    public final static int NONE = -1;
+
+    /**
+     * The number of ints used to represent each node.
+     */
+    final static int STRIDE = 3;
+
+    /**
+     * The number of letters supported in the trie.
+     */
+    final static int ALPHABET = 26;
+
+    private final static int TERMINAL = 1 << 31;
+    private final static int CHILD_MASK = (1 << ALPHABET) - 1;
+
+    /**
+     * @param index the index of the node value
+     * @return the node value at the specified index
+     */
+    abstract int read(int index);
+
+    /**
+     * @return the total number of node values, {@link #STRIDE} for each node
+     */
+    abstract int length();
+
+    /**
+     * @param nodes the flat array of node values
+     * @return a trie backed by the array
+     */
+    static Trie of(final int[] nodes) {
+        return new HeapTrie(nodes);
+    }
+
+    /**
+     * @param nodes the buffer of node values
+     * @return a trie reading its nodes directly from the buffer
+     */
+    static Trie of(final IntBuffer nodes) {
+        return new BufferTrie(nodes);
+    }
+
+    /**
+     * Combines tries that each hold the words starting with one letter into a single trie, with the same breadth-first
+     * layout as building all of the words at once. Each level of the combined trie holds the nodes of that level of
+     * every shard in turn, so every node is copied once with its child handle moved to the level below.
+     *
+     * @param shards the tries indexed by first letter, each holding only words starting with that letter, or
+     *     {@code null} if no word starts with the letter
+     * @return the trie containing all of the words
+     */
+    static Trie merge(final Trie[] shards) {
+        if (Objects.requireNonNull(shards).length != ALPHABET) {
+            throw new IllegalArgumentException("Invalid number of shards: " + shards.length);
+        }
+
+        // The index of the first node of each level of each shard, followed by the end of the last level.
+        final int[][] levels = new int[ALPHABET][];
+        int rootMask = 0;
+        int depth = 0;
+        for (int l = 0; l < ALPHABET; l++) {
+            final Trie shard = shards[l];
+            if (shard == null || shard.getNodeCount() < 2) {
+                continue;
+            }
+            if (shard.getChildMask(ROOT) != 1 << l) {
+                throw new IllegalArgumentException("Invalid shard for letter " + (char) ('a' + l));
+            }
+            rootMask |= 1 << l;
+            levels[l] = levels(shard);
+            depth = Math.max(depth, levels[l].length);
+        }
+
+        // The index in the combined trie of the first node of each level of each shard.
+        final int[][] starts = new int[ALPHABET][depth + 1];
+        int count = 1;
+        for (int d = 1; d <= depth; d++) {
+            for (int mask = rootMask; mask != 0; mask &= mask - 1) {
+                final int l = Integer.numberOfTrailingZeros(mask);
+                starts[l][d] = count;
+                count += (d + 1 < levels[l].length) ? levels[l][d + 1] - levels[l][d] : 0;
+            }
+        }
+
+        final int[] nodes = new int[count * STRIDE];
+        nodes[ROOT] = rootMask;
+        nodes[ROOT + 1] = STRIDE;
+        for (int mask = rootMask; mask != 0; mask &= mask - 1) {
+            final int l = Integer.numberOfTrailingZeros(mask);
+            final Trie shard = shards[l];
+            nodes[ROOT] |= shard.read(ROOT) & ~CHILD_MASK;
+            nodes[ROOT + 2] |= shard.read(ROOT + 2);
+
+            final int[] level = levels[l];
+            for (int d = 1; d + 1 < level.length; d++) {
+                final int shift = starts[l][d] - level[d];
+                final int childShift = starts[l][d + 1] - level[d + 1];
+                for (int node = level[d]; node < level[d + 1]; node++) {
+                    final int from = node * STRIDE;
+                    final int to = (node + shift) * STRIDE;
+                    nodes[to] = shard.read(from);
+                    nodes[to + 1] = shard.read(from + 1) + childShift * STRIDE;
+                    nodes[to + 2] = shard.read(from + 2);
+                }
+            }
+        }
+        return Trie.of(nodes);
+    }
+
+    /**
+     * @param trie a trie in breadth-first order
+     * @return the index of the first node of each level, followed by the end of the last level and of an empty level
+     *     beneath it
+     */
+    private static int[] levels(final Trie trie) {
+        final int count = trie.getNodeCount();
+        int[] levels = new int[] {0, 1};
+        while (levels[levels.length - 1] < count) {
+            int children = 0;
+            for (int node = levels[levels.length - 2]; node < levels[levels.length - 1]; node++) {
+                children += Integer.bitCount(trie.getChildMask(node * STRIDE));
+            }
+            levels = Arrays.copyOf(levels, levels.length + 1);
+            levels[levels.length - 1] = levels[levels.length - 2] + children;
+        }
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = count;
+        return levels;
+    }
+
+    /**
+     * @param c the character to convert
+     * @return the index of the character in the alphabet, or -1 if the character is not supported
+     */
+    static int indexOf(final char c) {
+        final int index = c - 'a';
+        return (index >= 0 && index < ALPHABET) ? index : -1;
+    }
+
+    /**
+     * @param node the handle of the parent node
+     * @param c the lowercase letter of the child to find
+     * @return the handle of the child node, or {@link #NONE} if no such child exists
+     */
+    public int getChild(final int node, final char c) {
+        final int index = indexOf(c);
+        if (index < 0) {
+            return NONE;
+        }
+
+        final int bit = 1 << index;
+        final int mask = read(node);
+        if ((mask & bit) == 0) {
+            return NONE;
+        }
+        return read(node + 1) + Integer.bitCount(mask & (bit - 1)) * STRIDE;
+    }
+
+    /**
+     * @param node the handle of the node to check
+     * @return whether the node represents the last character of a word
+     */
+    public boolean isWord(final int node) {
+        return (read(node) & TERMINAL) != 0;
+    }
+
+    /**
+     * @param node the handle of the node
+     * @return the mask of letter indexes for which the node has a child
+     */
+    public int getChildMask(final int node) {
+        return read(node) & CHILD_MASK;
+    }
+
+    /**
+     * @param node the handle of the node
+     * @return the handle of the child with the lowest letter, the remaining children follow it in letter order every
+     *     {@link #STRIDE} ints
+     */
+    public int getFirstChild(final int node) {
+        return read(node + 1);
+    }
+
+    /**
+     * @param length the word length
+     * @return the bit representing the length in a length mask, where all lengths of 31 or more share the top bit
+     */
+    static int lengthBit(final int length) {
+        return 1 << Math.min(length, 31);
+    }
+
+    /**
+     * @param node the handle of the node
+     * @param length the total length of the word being looked for
+     * @return {@code false} if no word with the specified length ends at or beneath the node
+     */
+    public boolean canReach(final int node, final int length) {
+        return (read(node + 2) & lengthBit(length)) != 0;
+    }
+
+    /**
+     * @param node the handle of the node to check
+     * @return whether the node has any child nodes
+     */
+    public boolean hasChildren(final int node) {
+        return (read(node) & CHILD_MASK) != 0;
+    }
+
+    /**
+     * @return the number of nodes in this trie
+     */
+    public int getNodeCount() {
+        return length() / STRIDE;
+    }
+
+    /**
+     * @return the approximate number of bytes used to store the nodes of this trie
+     */
+    public long getSizeInBytes() {
+        return 4L * length();
+    }
+
+    /**
+     * @param buffer the buffer into which all of the node values are written
+     */
+    void writeTo(final IntBuffer buffer) {
+        final int length = length();
+        for (int i = 0; i < length; i++) {
+            buffer.put(read(i));
+        }
+    }
+
+    /**
+     * A trie with its nodes in a heap array.
+     */
+    private final static class HeapTrie extends Trie {
+        private final int[] nodes;
+
+        /**
+         * @param nodes the flat array of node values
+         */
+        HeapTrie(final int[] nodes) {
+            this.nodes = nodes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int read(final int index) {
+            return this.nodes[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int length() {
+            return this.nodes.length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void writeTo(final IntBuffer buffer) {
+            buffer.put(this.nodes);
+        }
+    }
+
+    /**
+     * A trie reading its nodes from a buffer, typically a memory-mapped file, without copying them.
+     */
+    private final static class BufferTrie extends Trie {
+        private final IntBuffer nodes;
+
+        /**
+         * @param nodes the buffer of node values
+         */
+        BufferTrie(final IntBuffer nodes) {
+            this.nodes = nodes;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int read(final int index) {
+            return this.nodes.get(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int length() {
+            return this.nodes.limit();
+        }
+    }
+
+    /**
+     * Used to build tries. The builder keeps a full 26-entry child table per node so that insertion is fast, and
+     * compacts the nodes into the immutable form when {@link #build()} is called.
+     */
+    public static class Builder {
+        private int[] children;
+        private boolean[] terminal;
+        private int count;
+
+        /**
+         * Default constructor.
+         */
+        public Builder() {
+            this.children = new int[1024 * ALPHABET];
+            this.terminal = new boolean[1024];
+            this.count = 1;
+        }
+
+        /**
+         * @param other the trie to copy
+         */
+        public Builder(final Trie other) {
+            this.count = Objects.requireNonNull(other).getNodeCount();
+            this.children = new int[Math.max(1, this.count) * ALPHABET];
+            this.terminal = new boolean[Math.max(1, this.count)];
+
+            // The compact layout is breadth-first, so node ids can be reused directly.
+            for (int id = 0; id < this.count; id++) {
+                final int mask = other.read(id * STRIDE);
+                this.terminal[id] = (mask & TERMINAL) != 0;
+                int child = other.read(id * STRIDE + 1) / STRIDE;
+                for (int l = 0; l < ALPHABET; l++) {
+                    if ((mask & (1 << l)) != 0) {
+                        this.children[id * ALPHABET + l] = child++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param word the word to add, words containing characters other than {@code a} through {@code z} are ignored
+         * @return whether the word was added
+         */
+        public boolean add(final CharSequence word) {
+            final int length = Objects.requireNonNull(word).length();
+            for (int i = 0; i < length; i++) {
+                if (indexOf(Character.toLowerCase(word.charAt(i))) < 0) {
+                    return false;
+                }
+            }
+
+            int node = 0;
+            for (int i = 0; i < length; i++) {
+                final int slot = node * ALPHABET + indexOf(Character.toLowerCase(word.charAt(i)));
+                int child = this.children[slot];
+                if (child == 0) {
+                    child = allocate();
+                    this.children[slot] = child;
+                }
+                node = child;
+            }
+            this.terminal[node] = true;
+            return true;
+        }
+
+        /**
+         * @param bytes the buffer holding the word
+         * @param offset the index of the first byte of the word
+         * @param length the number of bytes in the word
+         * @return whether the word was added, words containing bytes other than {@code a} through {@code z} are
+         *     ignored
+         */
+        boolean add(final byte[] bytes, final int offset, final int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] < 'a' || bytes[i] > 'z') {
+                    return false;
+                }
+            }
+
+            int node = 0;
+            for (int i = offset; i < offset + length; i++) {
+                final int slot = node * ALPHABET + (bytes[i] - 'a');
+                int child = this.children[slot];
+                if (child == 0) {
+                    child = allocate();
+                    this.children[slot] = child;
+                }
+                node = child;
+            }
+            this.terminal[node] = true;
+            return true;
+        }
+
+        /**
+         * @return the id of a newly allocated node
+         */
+        private int allocate() {
+            if (this.count == this.terminal.length) {
+                final int capacity = this.terminal.length * 2;
+                this.children = Arrays.copyOf(this.children, capacity * ALPHABET);
+                this.terminal = Arrays.copyOf(this.terminal, capacity);
+            }
+            return this.count++;
+        }
+
+        /**
+         * @return the created trie
+         */
+        public Trie build() {
+            final int[] order = new int[this.count];
+            final int[] depths = new int[this.count];
+            final int[] nodes = new int[this.count * STRIDE];
+
+            // Breadth-first traversal, appending the children of each node in letter order so they are contiguous.
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                final int id = order[head];
+                int mask = this.terminal[id] ? TERMINAL : 0;
+                final int first = tail;
+                for (int l = 0; l < ALPHABET; l++) {
+                    final int child = this.children[id * ALPHABET + l];
+                    if (child != 0) {
+                        mask |= 1 << l;
+                        depths[tail] = depths[head] + 1;
+                        order[tail++] = child;
+                    }
+                }
+                nodes[head * STRIDE] = mask;
+                nodes[head * STRIDE + 1] = first * STRIDE;
+            }
+
+            // Children always come after their parent, so walking backwards sees every child before its parent.
+            for (int node = this.count - 1; node >= 0; node--) {
+                int lengths = this.terminal[order[node]] ? lengthBit(depths[node]) : 0;
+                int child = nodes[node * STRIDE + 1];
+                for (int mask = nodes[node * STRIDE] & CHILD_MASK; mask != 0; mask &= mask - 1, child += STRIDE) {
+                    lengths |= nodes[child + 2];
+                }
+                nodes[node * STRIDE + 2] = lengths;
+            }
+            return Trie.of(nodes);
+        }
+    }
+}
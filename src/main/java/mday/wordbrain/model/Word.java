@@ -1,34 +1,88 @@
 package mday.wordbrain.model;
 
-import org.apache.commons.lang3.builder.CompareToBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
 /**
  * Represents a collection of letters.
+ * <p>
+ * Words are immutable. The letters are held in an array (letters are interned, so the array is effectively a packed
+ * path of grid positions) together with the uppercase characters of the word, which act as a cached key for ordering
+ * words by spelling without building strings.
  */
 public class Word implements Comparable<Word> {
-    private final List<Letter> letters;
+    private final Letter[] letters;
+    private final char[] key;
+    private final int hash;
 
     /**
      * @param letters the letters contained in this word
      */
-    private Word(final Collection<Letter> letters) {
-        this.letters = new ArrayList<>(letters);
+    private Word(final Letter[] letters) {
+        this.letters = letters;
+        this.key = new char[letters.length];
+        for (int i = 0; i < letters.length; i++) {
+            this.key[i] = Character.toUpperCase(letters[i].getChar());
+        }
+        this.hash = Arrays.hashCode(letters);
     }
 
     /**
      * @return the letters contained in this word
      */
     public List<Letter> getLetters() {
-        return Collections.unmodifiableList(this.letters);
+        return Collections.unmodifiableList(Arrays.asList(this.letters));
+    }
+
+    /**
+     * @param index the index of the letter within this word
+     * @return the letter at the specified index
+     */
+    public Letter getLetter(final int index) {
+        return this.letters[index];
+    }
+
+    /**
+     * @return the number of letters in this word
+     */
+    public int getLength() {
+        return this.letters.length;
+    }
+
+    /**
+     * @param other the word to compare with
+     * @return the result of comparing the spelling of the two words, the same order as comparing their string values
+     */
+    public int compareSpelling(final Word other) {
+        final char[] a = this.key;
+        final char[] b = other.key;
+        final int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] - b[i];
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * @param other the word to compare with
+     * @return whether the two words have the same spelling, regardless of where their letters are located
+     */
+    public boolean isSpelledLike(final Word other) {
+        return Arrays.equals(this.key, other.key);
+    }
+
+    /**
+     * @return a hash code based only on the spelling of this word
+     */
+    int spellingHashCode() {
+        return Arrays.hashCode(this.key);
     }
 
     /**
@@ -36,11 +90,7 @@ public class Word implements Comparable<Word> {
      */
     @Override
     public String toString() {
-        final StringBuilder str = new StringBuilder();
-        for (final Letter letter : getLetters()) {
-            str.append(Character.toUpperCase(letter.getChar()));
-        }
-        return str.toString();
+        return new String(this.key);
     }
 
     /**
@@ -52,20 +102,14 @@ public class Word implements Comparable<Word> {
             return 1;
         }
 
-        final Iterator<Letter> iterA = getLetters().iterator();
-        final Iterator<Letter> iterB = other.getLetters().iterator();
-
-        final CompareToBuilder cmp = new CompareToBuilder();
-        while (iterA.hasNext() && iterB.hasNext()) {
-            cmp.append(iterA.next(), iterB.next());
-        }
-        if (iterA.hasNext()) {
-            cmp.append(iterA.next(), (char) 255);
-        }
-        if (iterB.hasNext()) {
-            cmp.append((char) 255, iterB.next());
+        final int length = Math.min(this.letters.length, other.letters.length);
+        for (int i = 0; i < length; i++) {
+            final int cmp = this.letters[i].compareTo(other.letters[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
         }
-        return cmp.toComparison();
+        return this.letters.length - other.letters.length;
     }
 
     /**
@@ -73,7 +117,15 @@ public class Word implements Comparable<Word> {
      */
     @Override
     public boolean equals(final Object other) {
-        return other instanceof Word && compareTo((Word) other) == 0;
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Word)) {
+            return false;
+        }
+
+        final Word word = (Word) other;
+        return this.hash == word.hash && Arrays.equals(this.letters, word.letters);
     }
 
     /**
@@ -81,23 +133,21 @@ public class Word implements Comparable<Word> {
      */
     @Override
     public int hashCode() {
-        final HashCodeBuilder hash = new HashCodeBuilder();
-        getLetters().forEach(l -> hash.append(l));
-        return hash.toHashCode();
+        return this.hash;
     }
 
     /**
-     * Do simple string comparisons for words.
+     * Compare words by spelling only, in the same order as their string values.
      */
     public static class SimpleComparator implements Comparator<Word> {
+        private final static Word NONE = new Word(new Letter[0]);
+
         /**
          * {@inheritDoc}
          */
         @Override
         public int compare(final Word a, final Word b) {
-            final String sa = (a == null) ? "" : a.toString();
-            final String sb = (b == null) ? "" : b.toString();
-            return sa.compareTo(sb);
+            return ((a == null) ? NONE : a).compareSpelling((b == null) ? NONE : b);
         }
     }
 
@@ -127,6 +177,15 @@ public class Word implements Comparable<Word> {
             add(letters);
         }
 
+        /**
+         * @param letter the letter to add to the end of the word
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder add(final Letter letter) {
+            this.letters.add(Objects.requireNonNull(letter));
+            return this;
+        }
+
         /**
          * @param letters the letters to include in the word
          * @return {@code this} for fluent-style usage
@@ -144,7 +203,7 @@ public class Word implements Comparable<Word> {
                 throw new IllegalStateException("Unable to build without letters");
             }
 
-            return new Word(this.letters);
+            return new Word(this.letters.toArray(new Letter[this.letters.size()]));
         }
     }
 }
@@ -0,0 +1,191 @@
+package mday.wordbrain.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A constraint on one of the words of a puzzle, such as a hint revealed by the game: the first letters of the word,
+ * the whole word, and/or the cell of its first letter. The cell is in the grid from which the word is removed, after
+ * the letters have fallen into the space left by the words found before it.
+ */
+public class WordHint {
+    private final char[] prefix;
+    private final boolean complete;
+    private final int startRow;
+    private final int startCol;
+
+    /**
+     * @param prefix the lowercase first letters of the word
+     * @param complete whether the prefix is the whole word
+     * @param startRow the row of the first letter, or -1 if not known
+     * @param startCol the column of the first letter, or -1 if not known
+     */
+    private WordHint(final char[] prefix, final boolean complete, final int startRow, final int startCol) {
+        this.prefix = prefix;
+        this.complete = complete;
+        this.startRow = startRow;
+        this.startCol = startCol;
+    }
+
+    /**
+     * @return the known first letters of the word, in lowercase, possibly empty
+     */
+    public String getPrefix() {
+        return new String(this.prefix);
+    }
+
+    /**
+     * @return the known first letters of the word, not to be modified
+     */
+    char[] getPrefixChars() {
+        return this.prefix;
+    }
+
+    /**
+     * @return whether the prefix is the whole word
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * @return whether the cell of the first letter is known
+     */
+    public boolean hasStartCell() {
+        return this.startRow >= 0;
+    }
+
+    /**
+     * @return the row of the first letter, or -1 if not known
+     */
+    public int getStartRow() {
+        return this.startRow;
+    }
+
+    /**
+     * @return the column of the first letter, or -1 if not known
+     */
+    public int getStartCol() {
+        return this.startCol;
+    }
+
+    /**
+     * @param wordLength the length of the word to which the hint applies
+     * @return whether a word of the length can satisfy the hint
+     */
+    public boolean allows(final int wordLength) {
+        return this.complete ? this.prefix.length == wordLength : this.prefix.length <= wordLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder str = new StringBuilder();
+        str.append(getPrefix().toUpperCase());
+        if (!this.complete) {
+            str.append('*');
+        }
+        if (hasStartCell()) {
+            str.append(String.format(" at %d, %d", this.startRow, this.startCol));
+        }
+        return str.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof WordHint)) {
+            return false;
+        }
+
+        final WordHint hint = (WordHint) other;
+        return Arrays.equals(this.prefix, hint.prefix) && this.complete == hint.complete
+                && this.startRow == hint.startRow && this.startCol == hint.startCol;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(this.prefix), this.complete, this.startRow, this.startCol);
+    }
+
+    /**
+     * Used to build word hints.
+     */
+    public static class Builder {
+        private String prefix = "";
+        private boolean complete = false;
+        private int startRow = -1;
+        private int startCol = -1;
+
+        /**
+         * Default constructor.
+         */
+        public Builder() {
+        }
+
+        /**
+         * @param prefix the known first letters of the word
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setPrefix(final String prefix) {
+            for (final char c : Objects.requireNonNull(prefix).toCharArray()) {
+                if (!Character.isAlphabetic(c)) {
+                    throw new IllegalArgumentException("Invalid character: " + c);
+                }
+            }
+
+            this.prefix = prefix.toLowerCase();
+            this.complete = false;
+            return this;
+        }
+
+        /**
+         * @param word the whole word
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setWord(final String word) {
+            setPrefix(word);
+            this.complete = true;
+            return this;
+        }
+
+        /**
+         * @param row the row of the first letter
+         * @param col the column of the first letter
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setStartCell(final int row, final int col) {
+            if (row < 0) {
+                throw new IllegalArgumentException("Invalid row: " + row);
+            }
+            if (col < 0) {
+                throw new IllegalArgumentException("Invalid column: " + col);
+            }
+
+            this.startRow = row;
+            this.startCol = col;
+            return this;
+        }
+
+        /**
+         * @return the created word hint
+         */
+        public WordHint build() {
+            if (this.prefix.isEmpty() && this.startRow < 0) {
+                throw new IllegalStateException("No constraints provided");
+            }
+
+            return new WordHint(this.prefix.toCharArray(), this.complete, this.startRow, this.startCol);
+        }
+    }
+}
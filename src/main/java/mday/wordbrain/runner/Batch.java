@@ -0,0 +1,178 @@
+package mday.wordbrain.runner;
+
+import mday.wordbrain.model.Dictionary;
+import mday.wordbrain.model.DictionaryLoader;
+import mday.wordbrain.model.Puzzle;
+import mday.wordbrain.model.Solution;
+import mday.wordbrain.model.SolutionCache;
+import mday.wordbrain.model.Solver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves many puzzles in a single JVM against one shared dictionary. Puzzles are read one per line, in the text form
+ * described by {@link Puzzle}, from the file named on the command line or from standard input when no file (or
+ * {@code -}) is named. Blank lines and lines starting with {@code #} are skipped.
+ * <p>
+ * Each puzzle is solved on a single thread, with up to one puzzle per thread of a fixed-size pool solved at a time,
+ * since independent puzzles scale better than splitting a single search. Results are written in input order, each
+ * with the time taken to solve it, and only a bounded number of puzzles are read ahead of the oldest unwritten result.
+ * A puzzle that is invalid or fails to solve is reported on its own result line, and the batch carries on.
+ * Repeated puzzles are answered from a {@link SolutionCache}, optionally persisted to the file named on the command
+ * line.
+ */
+public class Batch {
+    /**
+     * The number of puzzles whose solutions are kept in memory.
+     */
+    public final static int CACHE_SIZE = 4096;
+
+    private final Dictionary dictionary;
+    private final SolutionCache cache;
+    private final ExecutorService executor;
+    private final int window;
+
+    /**
+     * @param dictionary the dictionary shared by every solve, which is not modified
+     * @param cache the cache of previously solved puzzles
+     * @param threads the number of puzzles solved at the same time
+     */
+    public Batch(final Dictionary dictionary, final SolutionCache cache, final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid threads: " + threads);
+        }
+
+        this.dictionary = dictionary;
+        this.cache = cache;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.window = 4 * threads;
+    }
+
+    /**
+     * @param input the puzzles to solve, one per line
+     * @param output the stream to which the results are written
+     * @return the number of puzzles processed
+     */
+    public int run(final InputStream input, final PrintStream output) throws IOException, InterruptedException {
+        final Deque<Future<String>> pending = new ArrayDeque<>();
+        int count = 0;
+        try (final BufferedReader reader =
+                     new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+
+                pending.addLast(this.executor.submit(() -> solve(trimmed)));
+                count++;
+                if (pending.size() >= this.window) {
+                    output.print(result(pending.removeFirst()));
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            output.print(result(pending.removeFirst()));
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Stop accepting puzzles and wait for the ones already submitted to finish.
+     */
+    public void shutdown() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param line the text form of the puzzle
+     * @return the result of solving the puzzle, or the reason it could not be solved so that a single failure does not
+     *     stop the batch
+     */
+    private String solve(final String line) {
+        final long start = System.nanoTime();
+        final StringBuilder str = new StringBuilder();
+        try {
+            final Puzzle puzzle = Puzzle.parse(line);
+            SortedSet<Solution> solutions = this.cache.get(puzzle);
+            final boolean cached = solutions != null;
+            if (!cached) {
+                solutions = this.cache.put(puzzle,
+                        new Solver(this.dictionary, puzzle.getLetterGrid(), puzzle.getWordLengths()).solve());
+            }
+            str.append(String.format("%s: %d solutions in %d ms%s%n", line, solutions.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), cached ? " (cached)" : ""));
+            solutions.forEach(solution -> str.append("  ").append(solution).append(System.lineSeparator()));
+        } catch (final IllegalArgumentException invalid) {
+            str.append(String.format("%s: %s%n", line, invalid.getMessage()));
+        } catch (final IOException | RuntimeException failed) {
+            str.append(String.format("%s: failed: %s%n", line, failed));
+        }
+        return str.toString();
+    }
+
+    /**
+     * @param future the pending result of solving a puzzle
+     * @return the result of solving the puzzle
+     */
+    private static String result(final Future<String> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (final ExecutionException failed) {
+            throw new IllegalStateException("Failed to solve puzzle", failed.getCause());
+        }
+    }
+
+    /**
+     * @param args the command line parameters: the optional puzzle file, the optional number of threads and the
+     *     optional solution cache file
+     */
+    public static void main(final String... args) throws IOException, InterruptedException {
+        if (args.length > 3) {
+            System.err.println("Usage: Batch [<puzzle file> | - [<threads> [<cache file>]]]");
+            System.exit(1);
+        }
+
+        final int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final DictionaryLoader loader = new DictionaryLoader(threads);
+        final Dictionary dictionary = loader.load();
+        System.err.println(loader);
+
+        final long start = System.nanoTime();
+        final boolean stdin = args.length == 0 || "-".equals(args[0]);
+        final int count;
+        try (final SolutionCache cache = (args.length > 2)
+                ? new SolutionCache(CACHE_SIZE, new File(args[2])) : new SolutionCache(CACHE_SIZE);
+             final InputStream input = stdin ? System.in : new FileInputStream(args[0])) {
+            final Batch batch = new Batch(dictionary, cache, threads);
+            try {
+                count = batch.run(input, System.out);
+            } finally {
+                batch.shutdown();
+            }
+            System.err.println("Cache: " + cache);
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        System.err.println(String.format("Solved %d puzzles in %d ms on %d threads (%.1f puzzles/s)", count,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), threads, count * 1e9 / Math.max(1, elapsed)));
+    }
+}
@@ -0,0 +1,32 @@
+package mday.wordbrain.runner;
+
+import mday.wordbrain.model.Dictionary;
+import mday.wordbrain.model.DictionaryLoader;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compiles a plain-text word list into a binary dictionary snapshot that can be opened with
+ * {@link Dictionary#open(File)}.
+ */
+public class Compile {
+    /**
+     * @param args the command line parameters: the word list file and the snapshot file to create
+     */
+    public static void main(final String... args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: Compile <word list> <snapshot file>");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final DictionaryLoader loader = new DictionaryLoader(Runtime.getRuntime().availableProcessors());
+        final Dictionary dictionary = loader.load(new File(args[0]));
+        System.out.println(loader);
+        dictionary.save(new File(args[1]));
+
+        System.out.println(String.format("Compiled %s into %s: %d nodes, %d bytes in %d ms", args[0], args[1],
+                dictionary.getNodeCount(), new File(args[1]).length(), (System.nanoTime() - start) / 1000000));
+    }
+}
@@ -0,0 +1,114 @@
+package mday.wordbrain.runner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies, with one bucket for each power of two microseconds. Recording is a single
+ * striped counter increment, and percentiles are reported as the upper bound of the bucket containing them, so they
+ * are accurate to within a factor of two.
+ */
+public class LatencyHistogram {
+    private final static int BUCKETS = 40;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder totalMicros = new LongAdder();
+
+    /**
+     * Default constructor.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param micros the latency in microseconds
+     * @return the index of the bucket holding the latency
+     */
+    private static int bucket(final long micros) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, micros)));
+    }
+
+    /**
+     * @param bucket the index of the bucket
+     * @return the largest latency in microseconds held by the bucket
+     */
+    private static long upperBound(final int bucket) {
+        return (1L << bucket) - 1;
+    }
+
+    /**
+     * @param nanos the latency to record, in nanoseconds
+     */
+    public void record(final long nanos) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        this.counts[bucket(micros)].increment();
+        this.totalMicros.add(micros);
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (final LongAdder adder : this.counts) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the mean latency in microseconds, 0 if nothing has been recorded
+     */
+    public long getMeanMicros() {
+        final long count = getCount();
+        return (count == 0) ? 0 : this.totalMicros.sum() / count;
+    }
+
+    /**
+     * @param percentile the percentile to find, between 0 and 100
+     * @return an upper bound of the latency in microseconds at the percentile, 0 if nothing has been recorded
+     */
+    public long getPercentileMicros(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+
+        final long[] sums = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sums[i] = this.counts[i].sum();
+            count += sums[i];
+        }
+
+        final long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += sums[i];
+            if (seen >= rank && seen > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder str = new StringBuilder();
+        str.append(String.format("count=%d mean=%dus p50=%dus p90=%dus p99=%dus max=%dus", getCount(),
+                getMeanMicros(), getPercentileMicros(50), getPercentileMicros(90), getPercentileMicros(99),
+                getPercentileMicros(100)));
+        for (int i = 0; i < BUCKETS; i++) {
+            final long count = this.counts[i].sum();
+            if (count != 0) {
+                str.append(String.format("%n  <= %dus: %d", upperBound(i), count));
+            }
+        }
+        return str.toString();
+    }
+}
@@ -27,10 +27,12 @@ public class Run {
                 new LetterGrid.Builder(5).set("ALABH", "LFLLO", "ERMSU", "BNLAS", "UMAEE").build();
         final List<Integer> wordLengths = Arrays.asList(8, 3, 5, 4, 5);
 
-        final Solver solver = new Solver(dictionary, letterGrid, wordLengths);
+        final Solver solver = new Solver.Builder(dictionary, letterGrid, wordLengths)
+                .setParallelism(Runtime.getRuntime().availableProcessors()).build();
         final Set<Solution> solutions = solver.solve();
         System.out.println("Solutions: " + solutions.size());
         solutions.forEach(System.out::println);
+        System.out.println(solver.getStats().getSummary());
 
         if (solutions.size() < 10) {
             final SortedSet<Word> allWords = solver.getAllWords();
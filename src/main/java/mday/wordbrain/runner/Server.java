@@ -0,0 +1,500 @@
+package mday.wordbrain.runner;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import mday.wordbrain.model.CancellationToken;
+import mday.wordbrain.model.Dictionary;
+import mday.wordbrain.model.DictionaryLoader;
+import mday.wordbrain.model.Puzzle;
+import mday.wordbrain.model.SolveResult;
+import mday.wordbrain.model.Solution;
+import mday.wordbrain.model.SolutionCache;
+import mday.wordbrain.model.Solver;
+import mday.wordbrain.model.SolverStats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+
+/**
+ * A local HTTP service solving puzzles against one dictionary that stays loaded, so requests pay neither the JVM
+ * start-up nor the dictionary load and warm-up costs. Endpoints:
+ * <ul>
+ *     <li>{@code /solve}: solves the puzzle provided in the {@code grid} and {@code lengths} query parameters, for
+ *     example {@code /solve?grid=TRAE/EHSN/RALP/ETAI&lengths=4,6,6}, or in the text form described by {@link Puzzle}
+ *     as the body of a {@code POST}</li>
+ *     <li>{@code /stats}: reports the request counts, solve latency histogram and solver statistics</li>
+ * </ul>
+ * Puzzles are solved on a fixed number of threads with a bounded queue of waiting puzzles. When the queue is full the
+ * request is rejected with status 429. A solve still running at the deadline stops and returns the solutions found so
+ * far, marked as truncated in the response and the {@code X-Truncated} header, and the request fails with status 504
+ * only if even that partial result is not ready shortly after the deadline. A puzzle whose solve or cache lookup fails
+ * is answered with status 500. Repeated puzzles are answered from a {@link SolutionCache} without using a solve
+ * thread.
+ */
+public class Server {
+    private final static Logger LOG = LoggerFactory.getLogger(Server.class);
+
+    private final static int OK = 200;
+    private final static int BAD_REQUEST = 400;
+    private final static int NOT_FOUND = 404;
+    private final static int METHOD_NOT_ALLOWED = 405;
+    private final static int TOO_MANY_REQUESTS = 429;
+    private final static int INTERNAL_SERVER_ERROR = 500;
+    private final static int GATEWAY_TIMEOUT = 504;
+
+    /**
+     * The time allowed after the deadline for a solve that stopped at the deadline to return its partial result.
+     */
+    private final static long GRACE_MILLIS = 1000;
+
+    private final Dictionary dictionary;
+    private final SolutionCache cache;
+    private final long deadlineMillis;
+    private final HttpServer httpServer;
+    private final ExecutorService httpExecutor;
+    private final ThreadPoolExecutor solveExecutor;
+
+    private final SolverStats solverStats = new SolverStats();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * @param builder the builder containing the configuration of the server
+     */
+    private Server(final Builder builder) throws IOException {
+        this.dictionary = builder.dictionary;
+        this.cache = (builder.cache != null) ? builder.cache : new SolutionCache(builder.cacheSize);
+        this.deadlineMillis = builder.deadlineMillis;
+        this.solveExecutor = new ThreadPoolExecutor(builder.threads, builder.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(builder.queueLimit), new ThreadPoolExecutor.AbortPolicy());
+
+        // Every accepted puzzle holds one exchange thread while it waits, the extra threads answer the rest quickly.
+        this.httpExecutor = Executors.newFixedThreadPool(builder.threads + builder.queueLimit + 2);
+        this.httpServer = HttpServer.create(new InetSocketAddress(builder.port), 0);
+        this.httpServer.setExecutor(this.httpExecutor);
+        this.httpServer.createContext("/solve", this::handleSolve);
+        this.httpServer.createContext("/stats", this::handleStats);
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        this.httpServer.start();
+        LOG.info("Listening on port {}", getPort());
+    }
+
+    /**
+     * Stop accepting requests, waiting up to the specified delay for requests in progress to finish. Puzzles still being
+     * solved are then given up to their deadline to finish, and the cache is closed last, so the solutions they find
+     * are still saved.
+     *
+     * @param delaySeconds the maximum number of seconds to wait before closing the connections
+     */
+    public void stop(final int delaySeconds) throws IOException {
+        this.httpServer.stop(delaySeconds);
+        this.httpExecutor.shutdown();
+        this.solveExecutor.shutdown();
+        try {
+            final long timeout = this.deadlineMillis + GRACE_MILLIS;
+            this.httpExecutor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+            this.solveExecutor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.solveExecutor.shutdownNow();
+            this.cache.close();
+        }
+    }
+
+    /**
+     * @return the port on which the server is listening
+     */
+    public int getPort() {
+        return this.httpServer.getAddress().getPort();
+    }
+
+    /**
+     * @return the statistics of every solve run by the server
+     */
+    public SolverStats getSolverStats() {
+        return this.solverStats;
+    }
+
+    /**
+     * @return the histogram of the latencies of the requests answered by a solve, from receiving the request until the
+     *     response is sent, not including the requests answered from the cache, rejected or failed
+     */
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * Only the requests answered by a solve are recorded in the latency histogram, because the much faster cache hits
+     * and rejections would hide the solve latencies. They are tracked by their counters instead.
+     *
+     * @param exchange the request to solve a puzzle
+     */
+    private void handleSolve(final HttpExchange exchange) throws IOException {
+        final long start = System.nanoTime();
+        final Puzzle puzzle;
+        try {
+            puzzle = parse(exchange);
+        } catch (final IllegalArgumentException badRequest) {
+            this.invalid.increment();
+            respond(exchange, BAD_REQUEST, badRequest.getMessage());
+            return;
+        }
+        if (puzzle == null) {
+            this.invalid.increment();
+            respond(exchange, METHOD_NOT_ALLOWED, "Use GET or POST");
+            return;
+        }
+
+        final SortedSet<Solution> cached;
+        try {
+            cached = this.cache.get(puzzle);
+        } catch (final IOException | RuntimeException failure) {
+            fail(exchange, puzzle, failure);
+            return;
+        }
+        if (cached != null) {
+            respond(exchange, OK, format(puzzle, cached, false));
+            return;
+        }
+
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.deadlineMillis);
+        final CancellationToken token = new CancellationToken();
+        final Future<SolveResult> future;
+        try {
+            future = this.solveExecutor.submit(() -> solve(puzzle, deadline, token));
+        } catch (final RejectedExecutionException saturated) {
+            this.rejected.increment();
+            respond(exchange, TOO_MANY_REQUESTS, "Too many puzzles waiting to be solved");
+            return;
+        }
+
+        final SolveResult result;
+        final SortedSet<Solution> solutions;
+        try {
+            // The solve stops itself at the deadline, waiting longer only covers the time to wrap up.
+            result = future.get(this.deadlineMillis + GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            solutions = result.isTruncated() ? result.getSolutions() : this.cache.put(puzzle, result.getSolutions());
+        } catch (final TimeoutException timeout) {
+            token.cancel();
+            future.cancel(false);
+            this.timedOut.increment();
+            respond(exchange, GATEWAY_TIMEOUT, "Not solved within " + this.deadlineMillis + " ms");
+            return;
+        } catch (final InterruptedException interrupted) {
+            token.cancel();
+            future.cancel(false);
+            try {
+                fail(exchange, puzzle, interrupted);
+            } finally {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        } catch (final ExecutionException failure) {
+            fail(exchange, puzzle, failure.getCause());
+            return;
+        } catch (final IOException | RuntimeException failure) {
+            fail(exchange, puzzle, failure);
+            return;
+        }
+
+        if (result.isTruncated()) {
+            this.truncated.increment();
+            exchange.getResponseHeaders().set("X-Truncated", "true");
+        }
+        respond(exchange, OK, format(puzzle, solutions, result.isTruncated()));
+        this.latency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Answers a request whose puzzle could not be solved or looked up, with status 500. Only a failure to write the
+     * response is thrown.
+     *
+     * @param exchange the request to solve a puzzle
+     * @param puzzle the puzzle of the request
+     * @param failure the cause of the failure
+     */
+    private void fail(final HttpExchange exchange, final Puzzle puzzle, final Throwable failure) throws IOException {
+        this.failed.increment();
+        LOG.warn("Failed to solve {}", puzzle, failure);
+        respond(exchange, INTERNAL_SERVER_ERROR, "Failed to solve " + puzzle + ": " + failure);
+    }
+
+    /**
+     * @param exchange the request for the server statistics
+     */
+    private void handleStats(final HttpExchange exchange) throws IOException {
+        final String str = String.format("Active: %d%nQueued: %d%nCompleted: %d%nRejected: %d%nTruncated: %d%n"
+                        + "Timed out: %d%nInvalid: %d%nFailed: %d%nCache: %s%nSolve latency: %s%n%s%n",
+                this.solveExecutor.getActiveCount(), this.solveExecutor.getQueue().size(),
+                this.solveExecutor.getCompletedTaskCount(), this.rejected.sum(), this.truncated.sum(),
+                this.timedOut.sum(), this.invalid.sum(), this.failed.sum(), this.cache, this.latency,
+                this.solverStats.getSummary());
+        respond(exchange, OK, str);
+    }
+
+    /**
+     * @param puzzle the puzzle that was solved
+     * @param solutions the distinct solutions to the puzzle
+     * @param truncated whether the solve stopped at the deadline before finding every solution
+     * @return the text of the response
+     */
+    private static String format(final Puzzle puzzle, final SortedSet<Solution> solutions, final boolean truncated) {
+        final StringBuilder str = new StringBuilder();
+        str.append(String.format("%s: %d solutions%s%n", puzzle, solutions.size(), truncated ? " (truncated)" : ""));
+        solutions.forEach(solution -> str.append(solution).append(System.lineSeparator()));
+        return str.toString();
+    }
+
+    /**
+     * @param puzzle the puzzle to solve
+     * @param deadline the {@link System#nanoTime()} by which the solve has to finish
+     * @param token cancelled when the request has been abandoned
+     * @return the distinct solutions to the puzzle found by the deadline
+     */
+    private SolveResult solve(final Puzzle puzzle, final long deadline, final CancellationToken token) {
+        final Solver solver = new Solver.Builder(this.dictionary, puzzle.getLetterGrid(), puzzle.getWordLengths())
+                .setStats(this.solverStats).build();
+        return solver.solve(deadline - System.nanoTime(), TimeUnit.NANOSECONDS, token);
+    }
+
+    /**
+     * @param exchange the request containing the puzzle
+     * @return the puzzle provided in the request, or {@code null} if the request method is not supported
+     * @throws IllegalArgumentException if the puzzle is missing or invalid
+     */
+    private static Puzzle parse(final HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            return Puzzle.parse(read(exchange.getRequestBody()));
+        }
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            return null;
+        }
+
+        final Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        final String grid = params.get("grid");
+        final String lengths = params.get("lengths");
+        if (grid == null || lengths == null) {
+            throw new IllegalArgumentException("Expected grid and lengths parameters");
+        }
+        return Puzzle.parse(grid + " " + lengths);
+    }
+
+    /**
+     * @param query the raw query string of the request URI, possibly {@code null}
+     * @return the decoded query parameters
+     */
+    private static Map<String, String> parseQuery(final String query) throws UnsupportedEncodingException {
+        final Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (final String param : query.split("&")) {
+                final int equals = param.indexOf('=');
+                if (equals > 0) {
+                    params.put(URLDecoder.decode(param.substring(0, equals), "UTF-8"),
+                            URLDecoder.decode(param.substring(equals + 1), "UTF-8"));
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * @param input the stream to read
+     * @return the contents of the stream as a string
+     */
+    private static String read(final InputStream input) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param exchange the exchange to which the response is sent
+     * @param status the HTTP status code
+     * @param body the text of the response
+     */
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (final OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Used to build servers.
+     */
+    public static class Builder {
+        private final Dictionary dictionary;
+        private int port = 8080;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int queueLimit = 64;
+        private long deadlineMillis = 10000;
+        private int cacheSize = 4096;
+        private SolutionCache cache;
+
+        /**
+         * @param dictionary the dictionary shared by every solve, which is not modified
+         */
+        public Builder(final Dictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * @param port the port on which to listen, 0 to use any free port
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setPort(final int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port: " + port);
+            }
+
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param threads the number of puzzles solved at the same time
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setThreads(final int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Invalid threads: " + threads);
+            }
+
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param queueLimit the number of puzzles that may wait for a thread before requests are rejected
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setQueueLimit(final int queueLimit) {
+            if (queueLimit < 1) {
+                throw new IllegalArgumentException("Invalid queue limit: " + queueLimit);
+            }
+
+            this.queueLimit = queueLimit;
+            return this;
+        }
+
+        /**
+         * @param deadlineMillis the time allowed for each request, including time spent waiting in the queue
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setDeadlineMillis(final long deadlineMillis) {
+            if (deadlineMillis < 1) {
+                throw new IllegalArgumentException("Invalid deadline: " + deadlineMillis);
+            }
+
+            this.deadlineMillis = deadlineMillis;
+            return this;
+        }
+
+        /**
+         * @param cacheSize the number of puzzles whose solutions are kept in memory, when no cache is provided
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setCacheSize(final int cacheSize) {
+            if (cacheSize < 1) {
+                throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+            }
+
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * @param cache the cache of previously solved puzzles, which is closed when the server is stopped, or
+         *     {@code null} to use an in-memory cache
+         * @return {@code this} for fluent-style usage
+         */
+        public Builder setCache(final SolutionCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * @return the created server, not yet started
+         */
+        public Server build() throws IOException {
+            return new Server(this);
+        }
+    }
+
+    /**
+     * @param args the command line parameters: the optional port, number of threads, queue limit, deadline in
+     *     milliseconds and solution cache file
+     */
+    public static void main(final String... args) throws IOException, JMException {
+        if (args.length > 5) {
+            System.err.println("Usage: Server [<port> [<threads> [<queue limit> [<deadline ms> [<cache file>]]]]]");
+            System.exit(1);
+        }
+
+        final DictionaryLoader loader = new DictionaryLoader(Runtime.getRuntime().availableProcessors());
+        final Dictionary dictionary = loader.load();
+        LOG.info("{}", loader);
+
+        final Builder builder = new Builder(dictionary);
+        if (args.length > 0) {
+            builder.setPort(Integer.parseInt(args[0]));
+        }
+        if (args.length > 1) {
+            builder.setThreads(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            builder.setQueueLimit(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            builder.setDeadlineMillis(Long.parseLong(args[3]));
+        }
+        if (args.length > 4) {
+            builder.setCache(new SolutionCache(builder.cacheSize, new File(args[4])));
+        }
+
+        final Server server = builder.build();
+        server.getSolverStats().register("server");
+        server.start();
+    }
+}
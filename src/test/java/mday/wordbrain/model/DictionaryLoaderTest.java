@@ -0,0 +1,82 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ *
+ */
+public class DictionaryLoaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Word word(final String str) {
+        final LetterGrid grid = new LetterGrid.Builder(str.length()).setRow(0, str).build();
+        return new Word.Builder(grid.getLetters()).build();
+    }
+
+    @Test
+    public void testSmallChunks() throws IOException {
+        final File file = folder.newFile("words.txt");
+        final String text = "cat\r\n  Cater \n\ndog\na\njean-pierre\ncafé\nzebra\ndog\nunderstanding\nlast";
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        final Dictionary expected = new Dictionary();
+        expected.load(file);
+        final File expectedSnapshot = folder.newFile("sequential.trie");
+        expected.save(expectedSnapshot);
+
+        // Chunks much shorter than the lines make most lines start in one chunk and end in another.
+        for (final int chunkSize : new int[] {1, 3, 7, DictionaryLoader.DEFAULT_CHUNK_SIZE}) {
+            final DictionaryLoader loader = new DictionaryLoader(3, chunkSize);
+            final Dictionary dictionary = loader.load(file);
+            assertEquals(expected.getNodeCount(), dictionary.getNodeCount());
+            assertTrue(dictionary.exists(word("cater")));
+            assertTrue(dictionary.exists(word("a")));
+            assertTrue(dictionary.exists(word("understanding")));
+            assertTrue(dictionary.exists(word("last")));
+            assertFalse(dictionary.exists(word("cate")));
+            assertFalse(dictionary.isPrefix(word("j")));
+            assertEquals(expected.getMaxLetterCount(13, 'n'), dictionary.getMaxLetterCount(13, 'n'));
+            assertEquals(8, loader.getWordCount());
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length, loader.getByteCount());
+
+            final File snapshot = folder.newFile("parallel-" + chunkSize + ".trie");
+            dictionary.save(snapshot);
+            assertArrayEquals(Files.readAllBytes(expectedSnapshot.toPath()), Files.readAllBytes(snapshot.toPath()));
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        final Dictionary dictionary = new DictionaryLoader(2).load(folder.newFile("empty.txt"));
+        assertEquals(1, dictionary.getNodeCount());
+        assertFalse(dictionary.isPrefix(word("a")));
+    }
+
+    @Test
+    public void testSameSnapshotAsSequentialLoad() throws IOException {
+        final Dictionary sequential = new Dictionary();
+        sequential.load();
+        final File expected = folder.newFile("sequential.trie");
+        sequential.save(expected);
+
+        final DictionaryLoader loader = new DictionaryLoader(4, 64 * 1024);
+        final File actual = folder.newFile("parallel.trie");
+        loader.load().save(actual);
+        assertTrue(loader.getWordCount() > 0);
+        assertTrue(loader.getWordsPerSecond() > 0);
+        assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+}
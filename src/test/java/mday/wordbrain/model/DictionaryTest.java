@@ -0,0 +1,126 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ *
+ */
+public class DictionaryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Word word(final String str) {
+        final LetterGrid grid = new LetterGrid.Builder(str.length()).setRow(0, str).build();
+        return new Word.Builder(grid.getLetters()).build();
+    }
+
+    @Test
+    public void testExistsAndPrefix() {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("cater");
+        dictionary.add("dog");
+
+        assertTrue(dictionary.exists(word("cat")));
+        assertTrue(dictionary.exists(word("cater")));
+        assertTrue(dictionary.exists(word("dog")));
+        assertFalse(dictionary.exists(word("cate")));
+        assertFalse(dictionary.exists(word("do")));
+
+        assertTrue(dictionary.isPrefix(word("cate")));
+        assertTrue(dictionary.isPrefix(word("d")));
+        assertFalse(dictionary.isPrefix(word("cb")));
+        assertFalse(dictionary.isPrefix(word("x")));
+    }
+
+    @Test
+    public void testAddAfterQuery() {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        assertTrue(dictionary.exists(word("cat")));
+        assertFalse(dictionary.exists(word("cab")));
+
+        dictionary.add("Cab");
+        assertTrue(dictionary.exists(word("cat")));
+        assertTrue(dictionary.exists(word("cab")));
+        assertEquals(5, dictionary.getNodeCount());
+    }
+
+    @Test
+    public void testUnsupportedCharactersIgnored() {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("jean-pierre");
+        assertEquals(1, dictionary.getNodeCount());
+    }
+
+    @Test
+    public void testSaveAndOpenSnapshot() throws IOException {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("cater");
+        dictionary.add("dog");
+
+        final File file = folder.newFile("words.trie");
+        dictionary.save(file);
+
+        final Dictionary opened = Dictionary.open(file);
+        assertEquals(dictionary.getNodeCount(), opened.getNodeCount());
+        assertTrue(opened.exists(word("cater")));
+        assertTrue(opened.isPrefix(word("do")));
+        assertFalse(opened.exists(word("cate")));
+        assertEquals(1, opened.getMaxLetterCount(3, 'c'));
+
+        opened.add("cab");
+        assertTrue(opened.exists(word("cab")));
+        assertTrue(opened.exists(word("dog")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenInvalidSnapshot() throws IOException {
+        Dictionary.open(folder.newFile("empty.trie"));
+    }
+
+    @Test
+    public void testRestrict() {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("act");
+        dictionary.add("tact");
+        dictionary.add("cart");
+        dictionary.add("at");
+
+        final Dictionary restricted = dictionary.restrict("TCAX", Arrays.asList(3, 4));
+        assertTrue(restricted.exists(word("cat")));
+        assertTrue(restricted.exists(word("act")));
+        assertFalse(restricted.exists(word("tact")));
+        assertFalse(restricted.exists(word("cart")));
+        assertFalse(restricted.exists(word("at")));
+        assertFalse(restricted.isPrefix(word("x")));
+    }
+
+    @Test
+    public void testCanReach() {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("cattle");
+
+        final int c = dictionary.getChild(dictionary.getRoot(), 'c');
+        assertTrue(dictionary.canReach(c, 3));
+        assertTrue(dictionary.canReach(c, 6));
+        assertFalse(dictionary.canReach(c, 4));
+
+        final int cat = dictionary.getChild(dictionary.getChild(c, 'a'), 't');
+        assertTrue(dictionary.canReach(cat, 3));
+        assertFalse(dictionary.canReach(dictionary.getChild(cat, 't'), 3));
+    }
+}
@@ -0,0 +1,86 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ *
+ */
+public class GridStateTest {
+    @Test
+    public void testRemoveAndUndo() {
+        final LetterGrid grid = new LetterGrid.Builder(4).set("NHYN", "PRMO", "ROSL", "UTEE").build();
+        final Word first = new Word.Builder(Arrays.asList(grid.get(1, 2), grid.get(1, 3), grid.get(2, 3),
+                grid.get(3, 3), grid.get(2, 2), grid.get(3, 1))).build();
+        final LetterGrid afterFirst = new LetterGrid.Builder(grid).clear(first).build();
+
+        final GridState state = new GridState(grid);
+        state.removeWordWithGravity(first);
+        assertEquals(afterFirst, state.toLetterGrid());
+        assertEquals(afterFirst.getContentHash(), state.getContentHash());
+        assertEquals(10, state.getLetterCount());
+
+        // The second word uses letters that fell, at their new locations.
+        final Word second = new Word.Builder(Arrays.asList(afterFirst.get(3, 1), afterFirst.get(3, 2),
+                afterFirst.get(2, 2))).build();
+        final LetterGrid afterSecond = new LetterGrid.Builder(afterFirst).clear(second).build();
+        state.removeWordWithGravity(second);
+        assertEquals(afterSecond, state.toLetterGrid());
+        assertEquals(afterSecond.getContentHash(), state.getContentHash());
+
+        state.undo();
+        assertEquals(afterFirst, state.toLetterGrid());
+        state.undo();
+        assertEquals(grid, state.toLetterGrid());
+        assertEquals(grid.getContentHash(), state.getContentHash());
+        assertEquals(16, state.getLetterCount());
+    }
+
+    @Test
+    public void testCopy() {
+        final LetterGrid grid = new LetterGrid.Builder(3, 2).set("AB", "CD", "EF").build();
+        final GridState state = new GridState(grid);
+        final GridState copy = state.copy();
+        copy.removeWordWithGravity(new Word.Builder(Arrays.asList(grid.get(2, 0), grid.get(2, 1))).build());
+
+        assertEquals(grid, state.toLetterGrid());
+        assertEquals('c', copy.getChar(copy.getCell(2, 0)));
+        assertEquals('d', copy.getChar(copy.getCell(2, 1)));
+        assertFalse(copy.isOccupied(0));
+        assertEquals(copy.getCell(1, 0), copy.nextOccupied(0));
+    }
+
+    @Test
+    public void testLeavesSameGrid() {
+        // +---+---+---+
+        // | E | A | T |
+        // +---+---+---+
+        // | E | T | A |
+        // +---+---+---+
+        final LetterGrid grid = new LetterGrid.Builder(2, 3).set("EAT", "ETA").build();
+        final GridState state = new GridState(grid);
+
+        final Word top = new Word.Builder(Arrays.asList(grid.get(0, 0), grid.get(0, 1), grid.get(0, 2))).build();
+        final Word mixed = new Word.Builder(Arrays.asList(grid.get(1, 0), grid.get(0, 1), grid.get(0, 2))).build();
+        final Word bottom = new Word.Builder(Arrays.asList(grid.get(1, 0), grid.get(1, 1), grid.get(1, 2))).build();
+        assertTrue(state.leavesSameGrid(top, mixed));
+        assertFalse(state.leavesSameGrid(top, bottom));
+        assertTrue(state.leavesSameGrid(bottom, bottom));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveInvalidWord() {
+        final LetterGrid grid = new LetterGrid.Builder(2).set(" A", "BC").build();
+        new GridState(grid).removeWordWithGravity(new Word.Builder().add(Letter.valueOf(0, 0, 'a')).build());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUndoWithoutRemoval() {
+        new GridState(new LetterGrid.Builder(2).build()).undo();
+    }
+}
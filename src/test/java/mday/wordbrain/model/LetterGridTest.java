@@ -1,6 +1,8 @@
 package mday.wordbrain.model;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -81,6 +83,68 @@ public class LetterGridTest {
         assertEquals("HBF", new Word.Builder(letterGrid.getAdjacent(letterGrid.get(2, 2))).build().toString());
     }
 
+    @Test
+    public void testGetNeighbors() {
+        final LetterGrid letterGrid = new LetterGrid.Builder(3).set("ABC", "DEF", "GHI").build();
+        assertArrayEquals(new long[] {0b111111111L}, letterGrid.getOccupied());
+        assertEquals(0b000011010L, letterGrid.getNeighbors(letterGrid.getCell(0, 0)));
+        assertEquals(0b111101111L, letterGrid.getNeighbors(letterGrid.getCell(1, 1)));
+        assertEquals(0b000110010L, letterGrid.getNeighbors(letterGrid.getCell(0, 2)));
+        assertEquals('e', letterGrid.getChar(letterGrid.getCell(1, 1)));
+
+        final LetterGrid cleared = new LetterGrid.Builder(letterGrid).clear(0, 1).build();
+        assertArrayEquals(new long[] {0b111111101L}, cleared.getOccupied());
+        assertEquals(0b000011000L, cleared.getNeighbors(cleared.getCell(0, 0)));
+    }
+
+    @Test
+    public void testLargeRectangularGrid() {
+        final String[] rows = new String[12];
+        for (int r = 0; r < rows.length; r++) {
+            final StringBuilder row = new StringBuilder();
+            for (int c = 0; c < 14; c++) {
+                row.append((char) ('a' + (r + c) % 26));
+            }
+            rows[r] = row.toString();
+        }
+        final LetterGrid letterGrid = new LetterGrid.Builder(12, 14).set(rows).build();
+        assertEquals(12, letterGrid.getRows());
+        assertEquals(14, letterGrid.getCols());
+        assertEquals(168, letterGrid.getLetterCount());
+        assertEquals(3, letterGrid.getOccupied().length);
+        assertEquals('y', letterGrid.get(11, 13).getChar());
+
+        // Cell 64 is the first cell of the second bitset word, and its neighbors straddle the word boundary.
+        final int cell = 64;
+        final int base = letterGrid.getNeighborBase(cell);
+        long expected = 0;
+        for (final Letter adj : letterGrid.getAdjacent(letterGrid.get(cell))) {
+            expected |= 1L << (letterGrid.getCell(adj.getRow(), adj.getCol()) - base);
+        }
+        assertEquals(8, Long.bitCount(expected));
+        assertEquals(expected, letterGrid.getNeighbors(cell));
+
+        final long[] excluded = new long[3];
+        excluded[(cell + 1) >>> 6] |= 1L << (cell + 1);
+        excluded[(cell - 15) >>> 6] |= 1L << (cell - 15);
+        assertEquals(expected & ~(1L << (cell + 1 - base)) & ~(1L << (cell - 15 - base)),
+                letterGrid.getNeighbors(cell, excluded));
+
+        // Clearing the bottom cell of a column makes the whole column fall by one row.
+        final LetterGrid cleared = new LetterGrid.Builder(letterGrid).clear(11, 13).build();
+        assertTrue(cleared.get(0, 13).isEmpty());
+        assertFalse(cleared.isOccupied(cleared.getCell(0, 13)));
+        assertEquals(letterGrid.get(10, 13).getChar(), cleared.get(11, 13).getChar());
+        assertEquals(167, cleared.getLetterCount());
+        assertEquals(cleared.getCell(1, 0), cleared.nextOccupied(cleared.getCell(0, 13)));
+        assertEquals(-1, cleared.nextOccupied(cleared.getCellCount()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSizeOfRectangularGrid() {
+        new LetterGrid.Builder(2, 3).build().getSize();
+    }
+
     @Test
     public void testToStringEmpty() {
         final StringBuilder expected = new StringBuilder();
@@ -0,0 +1,39 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ */
+public class LetterTest {
+    @Test
+    public void testInterned() {
+        assertSame(Letter.valueOf(2, 3, 'a'), new Letter.Builder(2, 3, 'A').build());
+        assertSame(Letter.valueOf(8, 8, Letter.EMPTY), new Letter.Builder(8, 8).build());
+
+        final Letter other = Letter.valueOf(0, 0, 'é');
+        assertNotSame(other, Letter.valueOf(0, 0, 'é'));
+        assertEquals(other, Letter.valueOf(0, 0, 'é'));
+        assertEquals(other.hashCode(), Letter.valueOf(0, 0, 'é').hashCode());
+    }
+
+    @Test
+    public void testCompareTo() {
+        assertTrue(Letter.valueOf(5, 5, 'a').compareTo(Letter.valueOf(0, 0, 'b')) < 0);
+        assertTrue(Letter.valueOf(1, 5, 'a').compareTo(Letter.valueOf(2, 0, 'a')) < 0);
+        assertTrue(Letter.valueOf(1, 1, 'a').compareTo(Letter.valueOf(1, 2, 'a')) < 0);
+        assertTrue(Letter.valueOf(0, 0, Letter.EMPTY).compareTo(Letter.valueOf(0, 0, 'a')) < 0);
+        assertTrue(Letter.valueOf(0, 0, 'é').compareTo(Letter.valueOf(8, 8, 'z')) > 0);
+        assertEquals(0, Letter.valueOf(1, 1, 'a').compareTo(Letter.valueOf(1, 1, 'a')));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRow() {
+        Letter.valueOf(Letter.MAX_POSITION + 1, 0, 'a');
+    }
+}
@@ -0,0 +1,47 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ *
+ */
+public class PuzzleTest {
+    @Test
+    public void testParse() {
+        final Puzzle puzzle = Puzzle.parse("  TRAE/EHSN/RALP/ETAI   4,6,6 ");
+        assertEquals(4, puzzle.getLetterGrid().getSize());
+        assertEquals('h', puzzle.getLetterGrid().get(1, 1).getChar());
+        assertEquals(Arrays.asList(4, 6, 6), puzzle.getWordLengths());
+        assertEquals("TRAE/EHSN/RALP/ETAI 4,6,6", puzzle.toString());
+    }
+
+    @Test
+    public void testCanonicalForm() {
+        final Puzzle puzzle = Puzzle.parse("cat/d.g/e.r 3,3");
+        assertEquals("C.T/D.G/EAR 3,3", puzzle.toString());
+        assertEquals(puzzle, Puzzle.parse(puzzle.toString()));
+        assertEquals(puzzle.hashCode(), Puzzle.parse(puzzle.toString()).hashCode());
+    }
+
+    @Test
+    public void testParseRectangular() {
+        final Puzzle puzzle = Puzzle.parse("CAT/DOG 3,3");
+        assertEquals(2, puzzle.getLetterGrid().getRows());
+        assertEquals(3, puzzle.getLetterGrid().getCols());
+        assertEquals("CAT/DOG 3,3", puzzle.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalid() {
+        Puzzle.parse("CAT/DO 3,3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseNoRows() {
+        Puzzle.parse("/ 3");
+    }
+}
@@ -0,0 +1,127 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ *
+ */
+public class SolutionCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SortedSet<Solution> solve(final Dictionary dictionary, final Puzzle puzzle) {
+        return new Solver(dictionary, puzzle.getLetterGrid(), puzzle.getWordLengths()).solve();
+    }
+
+    private static List<Word> words(final SortedSet<Solution> solutions) {
+        final List<Word> words = new ArrayList<>();
+        solutions.forEach(solution -> words.addAll(solution.getWords()));
+        return words;
+    }
+
+    @Test
+    public void testMemoryEviction() throws IOException {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("dog");
+
+        final Puzzle first = Puzzle.parse("CAT/DOG/... 3,3");
+        final Puzzle second = Puzzle.parse("DOG/CAT/... 3,3");
+        try (final SolutionCache cache = new SolutionCache(1)) {
+            assertNull(cache.get(first));
+            cache.put(first, solve(dictionary, first));
+            cache.put(second, solve(dictionary, second));
+            assertEquals(1, cache.getSize());
+            assertNull(cache.get(first));
+            assertEquals(2, cache.get(second).size());
+            assertEquals(1, cache.getMemoryHits());
+            assertEquals(2, cache.getMisses());
+        }
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("act");
+        dictionary.add("dog");
+        dictionary.add("god");
+
+        final Puzzle solvable = Puzzle.parse("CAT/DOG/... 3,3");
+        final Puzzle unsolvable = Puzzle.parse("XYZ/DOG/... 3,3");
+        final SortedSet<Solution> expected = solve(dictionary, solvable);
+
+        final File file = folder.newFile("solutions.cache");
+        try (final SolutionCache cache = new SolutionCache(16, file)) {
+            cache.put(solvable, expected);
+            cache.put(unsolvable, solve(dictionary, unsolvable));
+        }
+
+        // An incomplete line left by a crash is ignored.
+        try (final FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write("CAT/TAC/... 3,3\tc0".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (final SolutionCache cache = new SolutionCache(16, file)) {
+            final SortedSet<Solution> cached = cache.get(solvable);
+            assertEquals(expected.toString(), cached.toString());
+            assertEquals(words(expected), words(cached));
+            assertEquals(0, cache.get(unsolvable).size());
+            assertNull(cache.get(Puzzle.parse("CAT/TAC/... 3,3")));
+
+            cache.get(solvable);
+            assertEquals(2, cache.getDiskHits());
+            assertEquals(1, cache.getMemoryHits());
+            assertEquals(1, cache.getMisses());
+        }
+    }
+
+    @Test
+    public void testCorruptLine() throws IOException {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("dog");
+
+        final Puzzle first = Puzzle.parse("CAT/DOG/... 3,3");
+        final Puzzle second = Puzzle.parse("DOG/CAT/... 3,3");
+        final SortedSet<Solution> expected = solve(dictionary, first);
+
+        final File file = folder.newFile("solutions.cache");
+        try (final SolutionCache cache = new SolutionCache(16, file)) {
+            cache.put(first, expected);
+            cache.put(second, solve(dictionary, second));
+        }
+
+        // Damage the row of the first letter of the first puzzle.
+        final String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        Files.write(file.toPath(), text.replaceFirst("\t(.)\\d", "\t$1x").getBytes(StandardCharsets.UTF_8));
+
+        try (final SolutionCache cache = new SolutionCache(16, file)) {
+            assertNull(cache.get(first));
+            assertEquals(1, cache.getCorruptLines());
+            assertEquals(1, cache.getMisses());
+            assertEquals(2, cache.get(second).size());
+
+            cache.put(first, solve(dictionary, first));
+        }
+
+        try (final SolutionCache cache = new SolutionCache(16, file)) {
+            assertEquals(expected.toString(), cache.get(first).toString());
+            assertEquals(0, cache.getCorruptLines());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ *
+ */
+public class SolutionTest {
+    private static Word word(final int row, final String str) {
+        final Word.Builder word = new Word.Builder();
+        for (int col = 0; col < str.length(); col++) {
+            word.add(Letter.valueOf(row, col, str.charAt(col)));
+        }
+        return word.build();
+    }
+
+    private static Solution solution(final String... words) {
+        final Solution.Builder solution = new Solution.Builder();
+        for (int i = 0; i < words.length; i++) {
+            solution.add(word(i, words[i]));
+        }
+        return solution.build();
+    }
+
+    @Test
+    public void testOrderMatchesStringOrder() {
+        final List<Solution> solutions = new ArrayList<>(Arrays.asList(
+                solution("ab", "c"), solution("abc", "d"), solution("ab", "cd"), solution("ab"), solution("b", "a"),
+                solution("ab", "c", "e"), solution("a", "bc")));
+
+        final List<Solution> expected = new ArrayList<>(solutions);
+        expected.sort((a, b) -> a.toString().compareTo(b.toString()));
+        solutions.sort(null);
+        assertEquals(expected, solutions);
+    }
+
+    @Test
+    public void testEqualsBySpelling() {
+        final Solution a = new Solution.Builder().add(word(0, "cat")).build();
+        final Solution b = new Solution.Builder().add(word(1, "cat")).build();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a.getWords().get(0), b.getWords().get(0));
+        assertTrue(new Word.SimpleComparator().compare(a.getWords().get(0), b.getWords().get(0)) == 0);
+        assertNotEquals(a, solution("cat", "dog"));
+    }
+}
@@ -0,0 +1,240 @@
+package mday.wordbrain.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ */
+public class SolverTest {
+    private static Dictionary dictionary;
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        dictionary = new Dictionary();
+        dictionary.load();
+    }
+
+    private static LetterGrid grid() {
+        return new LetterGrid.Builder(4).set("TRAE", "EHSN", "RALP", "ETAI").build();
+    }
+
+    private static List<Integer> lengths() {
+        return Arrays.asList(4, 6, 6);
+    }
+
+    @Test
+    public void testSolve() {
+        final SortedSet<Solution> solutions = new Solver(dictionary, grid(), lengths()).solve();
+        assertEquals(65, solutions.size());
+        solutions.forEach(solution -> assertEquals(3, solution.getSize()));
+    }
+
+    @Test
+    public void testParallelSolveMatchesSequential() {
+        final SortedSet<Solution> sequential = new Solver(dictionary, grid(), lengths()).solve();
+        for (int splitDepth = 0; splitDepth <= 3; splitDepth++) {
+            final Solver solver = new Solver.Builder(dictionary, grid(), lengths()).setParallelism(4)
+                    .setSplitDepth(splitDepth).build();
+            final SortedSet<Solution> parallel = solver.solve();
+            assertEquals(sequential.toString(), parallel.toString());
+            assertFalse(solver.getAllWords().isEmpty());
+        }
+    }
+
+    @Test
+    public void testTranspositionTableMatchesFullSearch() {
+        final SortedSet<Solution> cached = new Solver(dictionary, grid(), lengths()).solve();
+        final SortedSet<Solution> uncached =
+                new Solver.Builder(dictionary, grid(), lengths()).setTranspositionTableSize(0).build().solve();
+        assertEquals(uncached.toString(), cached.toString());
+    }
+
+    @Test
+    public void testRestrictedDictionaryMatchesFullDictionary() {
+        final SortedSet<Solution> full = new Solver(dictionary, grid(), lengths()).solve();
+        final SortedSet<Solution> restricted =
+                new Solver.Builder(dictionary, grid(), lengths()).setRestrictDictionary(true).build().solve();
+        assertEquals(full.toString(), restricted.toString());
+    }
+
+    @Test
+    public void testSolveWithLimit() {
+        final SortedSet<Solution> all = new Solver(dictionary, grid(), lengths()).solve();
+
+        final List<Solution> first = new Solver(dictionary, grid(), lengths()).solve(1);
+        assertEquals(1, first.size());
+        assertTrue(all.contains(first.get(0)));
+
+        final List<Solution> parallel =
+                new Solver.Builder(dictionary, grid(), lengths()).setParallelism(4).build().solve(5);
+        assertEquals(5, parallel.size());
+        assertTrue(all.containsAll(parallel));
+    }
+
+    @Test
+    public void testSolveStreamingStopCondition() {
+        final List<Solution> solutions = new ArrayList<>();
+        final boolean completed = new Solver(dictionary, grid(), lengths())
+                .solve(solutions::add, solution -> solution.getWords().get(0).toString().startsWith("H"));
+        assertFalse(completed);
+        assertTrue(solutions.get(solutions.size() - 1).getWords().get(0).toString().startsWith("H"));
+        assertTrue(new Solver(dictionary, grid(), lengths()).solve(solution -> { }));
+    }
+
+    @Test
+    public void testOrderFreeMatchesAllOrders() {
+        final SortedSet<Solution> expected = new TreeSet<>();
+        for (final List<Integer> order : Arrays.asList(
+                Arrays.asList(4, 6, 6), Arrays.asList(6, 4, 6), Arrays.asList(6, 6, 4))) {
+            expected.addAll(new Solver(dictionary, grid(), order).solve());
+        }
+
+        final SortedSet<Solution> orderFree =
+                new Solver.Builder(dictionary, grid(), Arrays.asList(6, 6, 4)).setOrderFree(true).build().solve();
+        assertEquals(expected.toString(), orderFree.toString());
+    }
+
+    @Test
+    public void testFeasibilityPruning() {
+        final Dictionary small = new Dictionary();
+        small.add("cat");
+        small.add("dog");
+        small.add("tag");
+        assertEquals(1, small.getMaxLetterCount(3, 'g'));
+        assertEquals(0, small.getMaxLetterCount(3, 'x'));
+
+        final LetterGrid grid = new LetterGrid.Builder(3).set("CAT", "DOX", "CAT").build();
+        final Solver solver = new Solver(small, grid, Arrays.asList(3, 3, 3));
+        assertTrue(solver.solve().isEmpty());
+        assertEquals(1, solver.getStats().getPrunedBranches());
+
+        final Solver unpruned =
+                new Solver.Builder(small, grid, Arrays.asList(3, 3, 3)).setFeasibilityPruning(false).build();
+        assertTrue(unpruned.solve().isEmpty());
+        assertEquals(0, unpruned.getStats().getPrunedBranches());
+    }
+
+    @Test
+    public void testCollapsedPaths() {
+        // Repeated letters give many paths with the same spelling that leave the same letters behind.
+        final LetterGrid grid = new LetterGrid.Builder(4).set("SEES", "ESSE", "TEAS", "SEAT").build();
+        final List<Integer> lengths = Arrays.asList(4, 4, 4, 4);
+
+        final SolverStats stats = new SolverStats();
+        final List<Solution> emitted = new ArrayList<>();
+        new Solver.Builder(dictionary, grid, lengths).setStats(stats).build().solve(emitted::add);
+        assertTrue(stats.getCollapsedPaths() > 0);
+
+        final SortedSet<Solution> expected = new TreeSet<>(emitted);
+        final SortedSet<Solution> parallel =
+                new Solver.Builder(dictionary, grid, lengths).setParallelism(4).setTranspositionTableSize(0).build()
+                        .solve();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.toString(), parallel.toString());
+    }
+
+    @Test
+    public void testStats() {
+        final SolverStats stats = new SolverStats();
+        final Solver sequential = new Solver.Builder(dictionary, grid(), lengths()).setTranspositionTableSize(0)
+                .setStats(stats).build();
+        sequential.solve();
+
+        assertTrue(stats.getStatesExpanded() > 0);
+        assertTrue(stats.getNodesExpanded() > 0);
+        assertEquals(stats.getNodesExpanded(), stats.getPrefixLookups() - stats.getPrefixMisses());
+        assertEquals(stats.getWordsFound(), stats.getGridsBuilt());
+        assertEquals(7, stats.getWordsFoundByLength().length);
+        assertEquals(4, stats.getTimeByDepth().length);
+
+        final long nodes = stats.getNodesExpanded();
+        new Solver.Builder(dictionary, grid(), lengths()).setTranspositionTableSize(0).setParallelism(4)
+                .setStats(stats).build().solve();
+        assertEquals(2 * nodes, stats.getNodesExpanded());
+
+        stats.reset();
+        assertEquals(0, stats.getNodesExpanded());
+        assertEquals(0, stats.getTimeByDepth().length);
+    }
+
+    @Test
+    public void testHints() {
+        final SortedSet<Solution> all = new Solver(dictionary, grid(), lengths()).solve();
+        final String first = all.first().getWords().get(0).toString();
+        final String last = all.first().getWords().get(2).toString();
+
+        final SortedSet<Solution> expected = new TreeSet<>();
+        all.stream().filter(solution -> solution.getWords().get(0).toString().startsWith(first.substring(0, 2)))
+                .filter(solution -> solution.getWords().get(2).toString().equals(last)).forEach(expected::add);
+        assertFalse(expected.isEmpty());
+        assertTrue(expected.size() < all.size());
+
+        final SortedSet<Solution> hinted = new Solver.Builder(dictionary, grid(), lengths())
+                .setHint(0, new WordHint.Builder().setPrefix(first.substring(0, 2)).build())
+                .setHint(2, new WordHint.Builder().setWord(last).build()).build().solve();
+        assertEquals(expected.toString(), hinted.toString());
+
+        final Letter start = all.first().getWords().get(0).getLetters().get(0);
+        final SortedSet<Solution> started = new Solver.Builder(dictionary, grid(), lengths())
+                .setHint(0, new WordHint.Builder().setStartCell(start.getRow(), start.getCol()).build()).build()
+                .solve();
+        assertTrue(started.contains(all.first()));
+        started.forEach(solution -> assertEquals(start, solution.getWords().get(0).getLetters().get(0)));
+
+        final SortedSet<Solution> orderFree = new Solver.Builder(dictionary, grid(), Arrays.asList(6, 6, 4))
+                .setOrderFree(true).setHint(1, new WordHint.Builder().setWord(last).build()).build().solve();
+        assertTrue(orderFree.containsAll(expected));
+        orderFree.forEach(solution -> assertTrue(solution.toString().contains(last)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHint() {
+        new Solver.Builder(dictionary, grid(), lengths()).setHint(0, new WordHint.Builder().setWord("hello").build());
+    }
+
+    @Test
+    public void testDeadline() {
+        final SolveResult complete = new Solver(dictionary, grid(), lengths()).solve(1, TimeUnit.MINUTES);
+        assertFalse(complete.isTruncated());
+        assertEquals(new Solver(dictionary, grid(), lengths()).solve().toString(),
+                complete.getSolutions().toString());
+
+        final SolveResult expired = new Solver(dictionary, grid(), lengths()).solve(0, TimeUnit.MILLISECONDS);
+        assertTrue(expired.isTruncated());
+        assertTrue(expired.getSolutions().isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancellation() throws InterruptedException {
+        final LetterGrid grid =
+                new LetterGrid.Builder(6).set("GARDEN", "PLANET", "SILVER", "BRIDGE", "CASTLE", "MARKET").build();
+        final CancellationToken token = new CancellationToken();
+        final Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (final InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            token.cancel();
+        });
+        canceller.start();
+
+        final SolveResult result = new Solver.Builder(dictionary, grid, Arrays.asList(6, 6, 6, 6, 6, 6))
+                .setParallelism(2).build().solve(1, TimeUnit.HOURS, token);
+        canceller.join();
+        assertTrue(result.isTruncated());
+    }
+}
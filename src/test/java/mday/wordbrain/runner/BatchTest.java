@@ -0,0 +1,84 @@
+package mday.wordbrain.runner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import mday.wordbrain.model.Dictionary;
+import mday.wordbrain.model.SolutionCache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ */
+public class BatchTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Dictionary dictionary() {
+        final Dictionary dictionary = new Dictionary();
+        dictionary.add("cat");
+        dictionary.add("act");
+        dictionary.add("dog");
+        dictionary.add("god");
+        return dictionary;
+    }
+
+    /**
+     * @return the result line written for each puzzle, without the indented solutions
+     */
+    private static List<String> run(final SolutionCache cache, final String... puzzles)
+            throws IOException, InterruptedException {
+        final String input = String.join("\n", puzzles);
+        final Batch batch = new Batch(dictionary(), cache, 3);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final PrintStream output = new PrintStream(bytes, true, "UTF-8")) {
+            batch.run(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        } finally {
+            batch.shutdown();
+        }
+
+        final List<String> results = new ArrayList<>();
+        for (final String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R")) {
+            if (!line.startsWith("  ")) {
+                results.add(line);
+            }
+        }
+        return results;
+    }
+
+    @Test
+    public void testResultsInInputOrder() throws IOException, InterruptedException {
+        final List<String> results = run(new SolutionCache(16), "CAT/DOG/... 3,3", "# comment", "",
+                "XYZ/DOG/... 3,3", "CAT/DO 3,3", "DOG/CAT/... 3,3", "CAT/DOG/... 3,3");
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).matches("CAT/DOG/\\.\\.\\. 3,3: 4 solutions in \\d+ ms"));
+        assertTrue(results.get(1).matches("XYZ/DOG/\\.\\.\\. 3,3: 0 solutions in \\d+ ms"));
+        assertTrue(results.get(2).startsWith("CAT/DO 3,3: Invalid"));
+        assertTrue(results.get(3).matches("DOG/CAT/\\.\\.\\. 3,3: 4 solutions in \\d+ ms"));
+        assertTrue(results.get(4).matches("CAT/DOG/\\.\\.\\. 3,3: 4 solutions in \\d+ ms( \\(cached\\))?"));
+    }
+
+    @Test
+    public void testFailuresReportedPerPuzzle() throws IOException, InterruptedException {
+        // Appending the solutions to a closed cache file fails after each solve.
+        final SolutionCache cache = new SolutionCache(16, this.folder.newFile("solutions.cache"));
+        cache.close();
+
+        final List<String> results = run(cache, "CAT/DOG/... 3,3", "CAT/DO 3,3", "DOG/CAT/... 3,3");
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).startsWith("CAT/DOG/... 3,3: failed: java.io.IOException"));
+        assertTrue(results.get(1).startsWith("CAT/DO 3,3: Invalid"));
+        assertTrue(results.get(2).startsWith("DOG/CAT/... 3,3: failed: java.io.IOException"));
+    }
+}
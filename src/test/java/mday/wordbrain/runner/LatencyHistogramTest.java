@@ -0,0 +1,65 @@
+package mday.wordbrain.runner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ */
+public class LatencyHistogramTest {
+    private static void record(final LatencyHistogram histogram, final long micros) {
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    @Test
+    public void testEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMicros());
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals(0, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        record(histogram, 1);
+        record(histogram, 3);
+        record(histogram, 5);
+        record(histogram, 1000);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals((1 + 3 + 5 + 1000) / 4, histogram.getMeanMicros());
+
+        // Each bucket holds the latencies from one power of two up to the next, and reports its upper bound.
+        assertEquals(1, histogram.getPercentileMicros(0));
+        assertEquals(1, histogram.getPercentileMicros(25));
+        assertEquals(3, histogram.getPercentileMicros(50));
+        assertEquals(7, histogram.getPercentileMicros(75));
+        assertEquals(1023, histogram.getPercentileMicros(76));
+        assertEquals(1023, histogram.getPercentileMicros(100));
+        assertTrue(histogram.toString().contains("<= 3us: 1"));
+        assertTrue(histogram.toString().contains("<= 1023us: 1"));
+    }
+
+    @Test
+    public void testBucketLimits() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(999);
+        assertEquals(0, histogram.getPercentileMicros(100));
+
+        // Latencies too long for the buckets are all counted in the last one.
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals((1L << 39) - 1, histogram.getPercentileMicros(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getPercentileMicros(101);
+    }
+}
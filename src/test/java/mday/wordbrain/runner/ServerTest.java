@@ -0,0 +1,250 @@
+package mday.wordbrain.runner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import mday.wordbrain.model.Dictionary;
+import mday.wordbrain.model.Puzzle;
+import mday.wordbrain.model.Solution;
+import mday.wordbrain.model.SolutionCache;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.SortedSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *
+ */
+public class ServerTest {
+    private final static String SOLVE = "/solve?grid=TRAE/EHSN/RALP/ETAI&lengths=4,6,6";
+
+    // Far too many words to solve within the deadlines used here.
+    private final static String SLOW_SOLVE =
+            "/solve?grid=GARDEN/PLANET/SILVER/BRIDGE/CASTLE/MARKET&lengths=6,6,6,6,6,6";
+
+    private static Dictionary dictionary;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Server server;
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        dictionary = new Dictionary();
+        dictionary.load();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        if (this.server != null) {
+            this.server.stop(0);
+        }
+    }
+
+    private void start(final Server.Builder builder) throws IOException {
+        this.server = builder.setPort(0).build();
+        this.server.start();
+    }
+
+    private Response request(final String method, final String path, final String body) throws IOException {
+        final URL url = new URL("http://localhost:" + this.server.getPort() + path);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (body != null) {
+                connection.setDoOutput(true);
+                try (final OutputStream output = connection.getOutputStream()) {
+                    output.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            final int status = connection.getResponseCode();
+            final InputStream input = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            if (input != null) {
+                try (final InputStream in = input) {
+                    final byte[] buffer = new byte[4096];
+                    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                        bytes.write(buffer, 0, read);
+                    }
+                }
+            }
+            return new Response(status, connection.getHeaderField("X-Truncated"),
+                    new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private Response get(final String path) throws IOException {
+        return request("GET", path, null);
+    }
+
+    private void awaitStats(final String line) throws IOException, InterruptedException {
+        while (!get("/stats").body.contains(line)) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testSolve() throws IOException {
+        start(new Server.Builder(dictionary));
+
+        final Response solved = get(SOLVE);
+        assertEquals(200, solved.status);
+        assertNull(solved.truncated);
+        assertTrue(solved.body.startsWith("TRAE/EHSN/RALP/ETAI 4,6,6: 65 solutions\n"));
+
+        final Response posted = request("POST", "/solve", "TRAE/EHSN/RALP/ETAI 4,6,6");
+        assertEquals(solved.body, posted.body);
+        assertEquals(1, this.server.getLatency().getCount());
+    }
+
+    @Test
+    public void testBadRequests() throws IOException {
+        start(new Server.Builder(dictionary));
+
+        assertEquals(400, get("/solve?grid=TRAE/EHS&lengths=4,6,6").status);
+        assertEquals(400, get("/solve?grid=TRAE/EHSN/RALP/ETAI").status);
+        assertEquals(400, get("/solve?grid=/&lengths=3").status);
+        assertEquals(405, request("PUT", "/solve", "TRAE/EHSN/RALP/ETAI 4,6,6").status);
+        assertEquals(0, this.server.getLatency().getCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testDeadline() throws IOException {
+        start(new Server.Builder(dictionary).setDeadlineMillis(200));
+
+        final Response response = get(SLOW_SOLVE);
+        assertEquals(200, response.status);
+        assertEquals("true", response.truncated);
+        assertTrue(response.body.contains("(truncated)"));
+        assertTrue(get("/stats").body.contains("Truncated: 1"));
+    }
+
+    @Test(timeout = 30000)
+    public void testQueueFull() throws Exception {
+        start(new Server.Builder(dictionary).setThreads(1).setQueueLimit(1).setDeadlineMillis(2000));
+
+        final ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Response> running = clients.submit(() -> get(SLOW_SOLVE));
+            awaitStats("Active: 1");
+            final Future<Response> queued = clients.submit(() -> get(SLOW_SOLVE));
+            awaitStats("Queued: 1");
+
+            assertEquals(429, get(SLOW_SOLVE).status);
+            assertEquals(200, running.get().status);
+            assertEquals(200, queued.get().status);
+            assertTrue(get("/stats").body.contains("Rejected: 1"));
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCacheFailure() throws IOException {
+        // Appending the solutions to a closed cache file fails after the solve.
+        final SolutionCache cache = new SolutionCache(16, this.folder.newFile("solutions.cache"));
+        cache.close();
+        start(new Server.Builder(dictionary).setCache(cache));
+
+        final Response response = get(SOLVE);
+        assertEquals(500, response.status);
+        assertTrue(response.body.startsWith("Failed to solve TRAE/EHSN/RALP/ETAI 4,6,6: "));
+        assertTrue(get("/stats").body.contains("Failed: 1\n"));
+        assertEquals(0, this.server.getLatency().getCount());
+    }
+
+    @Test(timeout = 30000)
+    public void testStopSavesSolutionsInProgress() throws Exception {
+        final CountDownLatch putting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final File file = this.folder.newFile("solutions.cache");
+        final SolutionCache cache = new SolutionCache(16, file) {
+            @Override
+            public SortedSet<Solution> put(final Puzzle puzzle, final SortedSet<Solution> solutions)
+                    throws IOException {
+                putting.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.put(puzzle, solutions);
+            }
+        };
+        start(new Server.Builder(dictionary).setCache(cache));
+
+        final ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            clients.submit(() -> get(SOLVE));
+            putting.await();
+
+            // Stop while the solutions are being stored, the cache must stay open until they are.
+            final Server stopping = this.server;
+            this.server = null;
+            final Future<?> stopped = clients.submit(() -> {
+                stopping.stop(0);
+                return null;
+            });
+            Thread.sleep(100);
+            release.countDown();
+            stopped.get();
+        } finally {
+            clients.shutdownNow();
+        }
+
+        try (final SolutionCache reopened = new SolutionCache(16, file)) {
+            assertNotNull(reopened.get(Puzzle.parse("TRAE/EHSN/RALP/ETAI 4,6,6")));
+        }
+    }
+
+    @Test
+    public void testStats() throws IOException {
+        start(new Server.Builder(dictionary));
+        get(SOLVE);
+        get(SOLVE);
+        get("/solve?grid=TRAE/EHS&lengths=4");
+
+        final Response stats = get("/stats");
+        assertEquals(200, stats.status);
+        assertTrue(stats.body.contains("Invalid: 1\n"));
+        assertTrue(stats.body.contains("Failed: 0\n"));
+        assertTrue(stats.body.contains("Cache: size=1 memoryHits=1 diskHits=0 misses=1 "));
+        assertTrue(stats.body.contains("Solve latency: count=1 "));
+    }
+
+    /**
+     * The parts of a response checked by the tests.
+     */
+    private static class Response {
+        private final int status;
+        private final String truncated;
+        private final String body;
+
+        Response(final int status, final String truncated, final String body) {
+            this.status = status;
+            this.truncated = truncated;
+            this.body = body;
+        }
+    }
+}